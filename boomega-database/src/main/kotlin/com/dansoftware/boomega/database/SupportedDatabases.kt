@@ -20,6 +20,8 @@ package com.dansoftware.boomega.database
 
 import com.dansoftware.boomega.database.api.DatabaseProvider
 import com.dansoftware.boomega.database.bmdb.BMDBProvider
+import com.dansoftware.boomega.database.bmdb2.BMDB2Provider
+import com.dansoftware.boomega.database.sql.h2.H2Provider
 import com.dansoftware.boomega.database.sql.mysql.MySQLProvider
 import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.plugin.DatabaseProviderPlugin
@@ -44,7 +46,9 @@ private fun loadProviders() =
 
 private fun loadBuiltInProviders() = sequenceOf<DatabaseProvider<*>>(
     BMDBProvider,
-    MySQLProvider
+    BMDB2Provider,
+    MySQLProvider,
+    H2Provider
 )
 
 private fun loadProvidersFromPlugins() =
@@ -0,0 +1,43 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import java.time.Duration
+
+/**
+ * A snapshot of the state of the connection pool used by a database.
+ *
+ * @param activeConnections the number of connections currently in use
+ * @param idleConnections the number of connections waiting in the pool
+ * @param totalConnections the number of connections opened by the pool
+ * @param waitingThreads the number of threads waiting for a connection
+ * @param averageWaitTime the average time it took to acquire a connection from the pool
+ */
+class ConnectionPoolStatistics(
+    val activeConnections: Int,
+    val idleConnections: Int,
+    val totalConnections: Int,
+    val waitingThreads: Int,
+    val averageWaitTime: Duration
+) {
+    override fun toString(): String {
+        return "ConnectionPoolStatistics(active=$activeConnections, idle=$idleConnections, " +
+                "total=$totalConnections, waiting=$waitingThreads, averageWaitTime=$averageWaitTime)"
+    }
+}
@@ -19,6 +19,8 @@
 package com.dansoftware.boomega.database.api
 
 import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.RecordProperty
+import java.lang.ref.WeakReference
 
 /**
  * A Database object can communicate with a particular data source.
@@ -42,6 +44,17 @@ interface Database {
      */
     val records: List<Record>
 
+    /**
+     * Gives the list of [Record]s stored in the database without their details
+     * (the [Record.notes] and the [Record.serviceConnection]), that might be large.
+     * The details of a record are loaded on demand, when they are accessed first (see [Record.deferDetails]).
+     *
+     * Useful for the views listing the records without showing their details.
+     * The default implementation simply gives the fully loaded [records].
+     */
+    val recordSummaries: List<Record>
+        get() = records
+
     /**
      * Gives the total count of records.
      */
@@ -54,16 +67,93 @@ interface Database {
      */
     val isClosed: Boolean
 
+    /**
+     * Gives a particular portion of the [Record]s stored in the database.
+     *
+     * @param offset the number of records to skip
+     * @param limit the maximum number of records to return
+     * @param sort the ordering of the records; `null` means the natural order of the data source
+     */
+    fun page(offset: Int, limit: Int, sort: RecordSort? = null): List<Record> {
+        return find(RecordQuery(sort = listOfNotNull(sort), offset = offset, limit = limit))
+    }
+
+    /**
+     * Gives the [Record]s matching the given [RecordQuery].
+     *
+     * The default implementation iterates over the records through a [cursor] and evaluates the query in memory;
+     * implementations should override it with an approach that is native to the data source.
+     */
+    fun find(query: RecordQuery): List<Record> {
+        return cursor().use(query::execute)
+    }
+
+    /**
+     * Gives the [Record] with the given id; `null` if there is no such record.
+     */
+    fun findById(id: Long): Record? {
+        return findByIds(listOf(id)).firstOrNull()
+    }
+
+    /**
+     * Gives the [Record]s with the given ids. Ids without a record are ignored.
+     *
+     * The default implementation iterates over the records through a [cursor];
+     * implementations should override it with a direct lookup.
+     */
+    fun findByIds(ids: Collection<Long>): List<Record> {
+        val idSet = ids.toHashSet()
+        return cursor().use { cursor -> cursor.filter { it.id in idSet }.toList() }
+    }
+
+    /**
+     * Gives the [Record]s with the given ISBN.
+     */
+    fun findByIsbn(isbn: String): List<Record> {
+        return find(RecordQuery(predicates = listOf(RecordPredicate.Equals(RecordProperty.ISBN, isbn))))
+    }
+
+    /**
+     * Opens a [RecordCursor] that allows to iterate over the stored [Record]s lazily,
+     * without holding all of them in memory at once.
+     *
+     * The returned cursor should always be closed after use.
+     *
+     * The default implementation simply iterates over the [records];
+     * implementations should override it with an approach that is native to the data source.
+     */
+    fun cursor(): RecordCursor = RecordCursor.of(records)
+
     /**
      * Inserts a record into the database
      */
     fun insertRecord(record: Record)
 
+    /**
+     * Inserts the given records into the database.
+     *
+     * Implementations should perform it in a single batch/transaction and notify the listeners
+     * only once. The default implementation simply calls [insertRecord] for each record.
+     */
+    fun insertRecords(records: List<Record>) {
+        records.forEach(::insertRecord)
+    }
+
     /**
      * Updates the record in the database
      */
     fun updateRecord(record: Record)
 
+    /**
+     * Updates the given records in the database.
+     *
+     * Implementations should perform it in a single batch/transaction and notify the listeners
+     * only once. The default implementation simply calls [updateRecord] for each record.
+     */
+    fun updateRecords(records: List<Record>) {
+        records.forEach(::updateRecord)
+    }
+
     /**
      * Deletes the record from the database
      */
@@ -84,6 +174,8 @@ interface Database {
      * database changes.
      *
      * If the same listener is added more than once, then it will be ignored.
+     *
+     * The listeners might be notified asynchronously, on a different thread than the one performed the change.
      */
     fun addListener(listener: DatabaseChangeListener)
 
@@ -94,4 +186,49 @@ interface Database {
      * If the given listener has not been previously registered then this method call is a no-op.
      */
     fun removeListener(listener: DatabaseChangeListener)
+}
+
+/**
+ * Defers the details of the record (see [Record.deferDetails]) to be loaded from the given database by its id.
+ *
+ * The record doesn't keep the database reachable; if the database is closed by the time the details
+ * are accessed, they are left empty.
+ */
+internal fun Record.deferDetailsTo(database: Database) {
+    deferDetails(DatabaseDetailsLoader(database, requireNotNull(id) { "The record must have an id" }))
+}
+
+/**
+ * Loads the details of the records that are not loaded yet (see [Database.recordSummaries]) by a single
+ * [Database.findByIds] for each database they come from, instead of looking them up one-by-one
+ * when they are accessed first.
+ *
+ * Should be called before the details of several records are accessed (e.g. when they are searched, exported
+ * or written into a database); the databases call it before opening their sessions/transactions.
+ */
+fun Iterable<Record>.loadDetails() {
+    // the records with other kinds of loaders are left to be loaded on demand
+    val loaders = filterNot(Record::isDetailsLoaded)
+        .mapNotNull { record -> (record.pendingDetailsLoader as? DatabaseDetailsLoader)?.let { record to it } }
+    loaders.groupBy { (_, loader) -> loader.database }.forEach { (database, group) ->
+        if (database === null) return@forEach
+        val loaded = database.findByIds(group.map { (_, loader) -> loader.id }.distinct()).associateBy(Record::id)
+        group.forEach { (record, loader) -> record.takeDetailsFrom(loaded[loader.id]) }
+    }
+}
+
+/**
+ * Loads the details of a record from the database by its id.
+ *
+ * It doesn't keep the database reachable; if the database is closed by the time the details
+ * are accessed, they are left empty.
+ */
+private class DatabaseDetailsLoader(database: Database, val id: Long) : () -> Record? {
+
+    private val reference = WeakReference(database)
+
+    val database: Database?
+        get() = reference.get()?.takeUnless(Database::isClosed)
+
+    override fun invoke(): Record? = database?.findById(id)
 }
\ No newline at end of file
@@ -0,0 +1,163 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import org.slf4j.LoggerFactory
+import java.io.Closeable
+import java.util.concurrent.CopyOnWriteArraySet
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+/**
+ * Delivers the [DatabaseChangeEvent]s of a [Database] to the registered [DatabaseChangeListener]s.
+ *
+ * The events are dispatched asynchronously on a dedicated thread in the order they were published,
+ * so the writer threads never block on the listeners. The events published within the
+ * [coalescingWindow] are delivered together: the consecutive events of the same [DatabaseChangeType]
+ * are merged into a single event. After the bus is [closed][close], the published events are dropped.
+ *
+ * @param coalescingWindow the time (in milliseconds) the events are collected for before they are dispatched;
+ *                         `0` means the events are dispatched as soon as possible
+ */
+class DatabaseEventBus @JvmOverloads constructor(
+    private val coalescingWindow: Long = DEFAULT_COALESCING_WINDOW
+) : Closeable {
+
+    private val listeners: MutableSet<DatabaseChangeListener> = CopyOnWriteArraySet()
+
+    private val pendingEvents: MutableList<DatabaseChangeEvent> = ArrayList()
+
+    // guarded by pendingEvents
+    private var closed = false
+
+    private val dispatcher: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor { runnable ->
+        Thread(runnable, "database-event-dispatcher").also { it.isDaemon = true }
+    }
+
+    init {
+        require(coalescingWindow >= 0) { "The coalescing window must not be negative" }
+    }
+
+    /**
+     * Adds the listener; if it's already registered, the call is a no-op.
+     */
+    fun addListener(listener: DatabaseChangeListener) {
+        listeners.add(listener)
+    }
+
+    /**
+     * Removes the listener; if it's not registered, the call is a no-op.
+     */
+    fun removeListener(listener: DatabaseChangeListener) {
+        listeners.remove(listener)
+    }
+
+    /**
+     * Publishes an event of the given type with the given records.
+     */
+    fun publish(type: DatabaseChangeType, records: List<Record>) {
+        publish(DatabaseChangeEvent(type, records))
+    }
+
+    /**
+     * Publishes the given event; it will be delivered to the listeners asynchronously.
+     * If the bus is already closed, the event is dropped.
+     */
+    fun publish(event: DatabaseChangeEvent) {
+        synchronized(pendingEvents) {
+            if (closed) {
+                logger.debug("The event bus is closed, dropping {} event", event.type)
+                return
+            }
+            pendingEvents.add(event)
+            // the first event of the batch schedules the dispatch
+            if (pendingEvents.size == 1)
+                dispatcher.schedule(Runnable { dispatchPendingEvents() }, coalescingWindow, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    /**
+     * Delivers the events that are still pending and stops the dispatcher thread.
+     * The final dispatch runs on the dispatcher thread after the already scheduled ones,
+     * so the events are still delivered in order; the call waits until it completes.
+     */
+    override fun close() {
+        synchronized(pendingEvents) {
+            if (closed) return
+            closed = true
+            dispatcher.execute { dispatchPendingEvents() }
+            dispatcher.shutdown()
+        }
+        try {
+            if (!dispatcher.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS))
+                logger.warn("The pending database events couldn't be delivered in {} ms", CLOSE_TIMEOUT)
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+        }
+    }
+
+    private fun dispatchPendingEvents() {
+        val events = synchronized(pendingEvents) {
+            pendingEvents.toList().also { pendingEvents.clear() }
+        }
+        coalesce(events).forEach { event ->
+            listeners.forEach {
+                try {
+                    it.onChange(event)
+                } catch (e: RuntimeException) {
+                    logger.error("Database change listener failed", e)
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the consecutive events of the same type.
+     */
+    private fun coalesce(events: List<DatabaseChangeEvent>): List<DatabaseChangeEvent> {
+        if (events.size < 2) return events
+        val result = ArrayList<DatabaseChangeEvent>()
+        var type = events[0].type
+        var records = ArrayList<Record>()
+        events.forEach { event ->
+            if (event.type != type) {
+                result.add(DatabaseChangeEvent(type, records))
+                type = event.type
+                records = ArrayList()
+            }
+            records.addAll(event.records)
+        }
+        result.add(DatabaseChangeEvent(type, records))
+        return result
+    }
+
+    companion object {
+
+        private val logger = LoggerFactory.getLogger(DatabaseEventBus::class.java)
+
+        /**
+         * The default coalescing window (in milliseconds)
+         */
+        const val DEFAULT_COALESCING_WINDOW = 50L
+
+        private const val CLOSE_TIMEOUT = 5000L
+    }
+}
@@ -59,5 +59,23 @@ abstract class DatabaseMeta() {
         object Exists : Action<Boolean>()
         object SizeInBytes : Action<Long>()
         object OpenInExternalApplication: Action<Unit>()
+        object RebuildIndexes : Action<Unit>()
+        object PoolStatistics : Action<ConnectionPoolStatistics>()
+
+        /**
+         * Reclaims the unused space of the database storage; gives the number of bytes reclaimed.
+         *
+         * @param onProgress receives the progress of the compaction (between 0 and 1), from the thread performing it;
+         * [INDETERMINATE_PROGRESS] if the progress of the current step can't be measured
+         */
+        class Compact @JvmOverloads constructor(val onProgress: (Double) -> Unit = {}) : Action<Long>() {
+            companion object {
+                /**
+                 * Reported while the storage is compacted in a step whose progress can't be measured;
+                 * it should be displayed as a busy indicator.
+                 */
+                const val INDETERMINATE_PROGRESS = -1.0
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,307 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.gui.api.Context
+import com.dansoftware.boomega.gui.util.*
+import com.dansoftware.boomega.i18n.api.i18n
+import com.dansoftware.boomega.util.hasValidPath
+import javafx.beans.property.BooleanProperty
+import javafx.beans.property.SimpleBooleanProperty
+import javafx.beans.property.SimpleStringProperty
+import javafx.beans.property.StringProperty
+import javafx.beans.value.ObservableBooleanValue
+import javafx.geometry.Insets
+import javafx.scene.Node
+import javafx.scene.control.*
+import javafx.scene.layout.GridPane
+import javafx.scene.layout.Priority
+import javafx.stage.DirectoryChooser
+import net.synedra.validatorfx.Validator
+import java.io.File
+
+/**
+ * A [RegistrationForm] for the databases stored in a single file.
+ * The user specifies the name and the directory of the database, and optionally the credentials
+ * it's protected with.
+ *
+ * @param fileExtension the extension of the database file (with the leading dot)
+ * @param protection the kind of credentials the database can be protected with
+ */
+abstract class FileRegistrationForm<M : DatabaseMeta>(
+    context: Context,
+    options: Map<DatabaseOption<*>, Any>,
+    fileExtension: String,
+    private val protection: Protection
+) : RegistrationForm<M>(context, options) {
+
+    private val databaseName: StringProperty = SimpleStringProperty()
+    private val databaseDir: StringProperty = SimpleStringProperty()
+    private val authentication: BooleanProperty = SimpleBooleanProperty()
+    private val username: StringProperty = SimpleStringProperty()
+    private val password: StringProperty = SimpleStringProperty()
+    private val passwordRepeat: StringProperty = SimpleStringProperty()
+    private val fullPath: StringProperty =
+        databaseDir.concat(File.separator)
+            .concat(databaseName)
+            .concat(fileExtension)
+            .asStringProperty()
+
+    private val databaseFile get() = File(fullPath.get())
+    private val databaseDirFile: File get() = File(databaseDir.get())
+
+    private val generalValidator = Validator()
+    private val credentialsValidator = Validator()
+
+    override val persistable: ObservableBooleanValue
+        get() = generalValidator.containsErrorsProperty()
+            .or(credentialsValidator.containsErrorsProperty().and(authentication))
+            .not()
+
+    override val node: Node = Grid()
+
+    /**
+     * Creates the meta-information of the database with the given name and file
+     */
+    protected abstract fun createMeta(name: String, file: File): M
+
+    /**
+     * Gives the credentials the database is created with
+     *
+     * @param username the username specified (`null` if the [protection] doesn't require a username)
+     */
+    protected abstract fun createCredentials(username: String?, password: String): Map<DatabaseField<*>, Any>
+
+    /**
+     * Creates the database file by opening (and closing) the database
+     */
+    protected abstract fun createDatabase(meta: M, credentials: Map<DatabaseField<*>, Any>)
+
+    override fun registrate(): M {
+        databaseDirFile.mkdirs()
+        val meta = createMeta(databaseName.get(), databaseFile)
+        val credentials = when {
+            authentication.get() -> createCredentials(
+                username.get().takeIf { protection.hasUsername },
+                password.get()
+            )
+            else -> emptyMap()
+        }
+        createDatabase(meta, credentials)
+        return meta
+    }
+
+    /**
+     * The kinds of credentials a file database can be protected with
+     */
+    enum class Protection(
+        internal val checkLabel: String,
+        internal val isDefault: Boolean,
+        internal val hasUsername: Boolean
+    ) {
+
+        /**
+         * The database requires a username and a password
+         */
+        AUTHENTICATION("database.creator.db_auth", true, true),
+
+        /**
+         * The database file is encrypted with a password
+         */
+        ENCRYPTION("database.creator.db_encryption", false, false)
+    }
+
+    private inner class Grid : GridPane() {
+
+        private val directoryChooser = DirectoryChooser()
+
+        /**
+         * The row of the first credentials input
+         */
+        private val credentialsRow = 6
+
+        init {
+            padding = Insets(10.0)
+            hgap = 5.0
+            vgap = 5.0
+            buildUI()
+        }
+
+        private fun buildUI() {
+            children.add(buildLabel("database.creator.db_name", 0, 0))
+            children.add(buildNameField())
+            children.add(buildLabel("database.creator.db_dir", 1, 0))
+            children.add(buildDirField())
+            children.add(buildDirOpenButton())
+            children.add(buildLabel("database.creator.full_path", 0, 2))
+            children.add(buildFullPathField())
+            children.add(buildAuthenticationCheck())
+            if (protection.hasUsername)
+                children.add(buildUsernameInput())
+            buildPasswordInputs()
+        }
+
+        private fun buildLabel(i18n: String, column: Int, row: Int) = Label(i18n(i18n)).apply {
+            setConstraints(this, column, row)
+        }
+
+        private fun buildNameField() = TextField().apply {
+            setConstraints(this, 0, 1)
+            setHgrow(this, Priority.SOMETIMES)
+            databaseName.bind(textProperty())
+            minHeight = 35.0
+            textFormatter = SpaceValidator()
+            validateImmediate(generalValidator) { it, _ ->
+                when {
+                    databaseName.get().isEmpty() -> it.error(i18n("database.creator.missing_name.title"))
+                    databaseFile.exists() -> it.error(i18n("database.creator.file_already_exists.title"))
+                }
+            }
+        }
+
+        private fun buildDirField() = TextField().apply {
+            setConstraints(this, 1, 1)
+            setHgrow(this, Priority.ALWAYS)
+            minHeight = 35.0
+            text = System.getProperty("boomega.dir.default.path");
+            databaseDir.bindBidirectional(textProperty())
+            textProperty().bindBidirectional(databaseDir)
+            validateImmediate(generalValidator) { it, _ ->
+                when {
+                    databaseDirFile.hasValidPath.not() -> it.error(i18n("database.creator.invalid_dir.title"))
+                    databaseDir.get().isBlank() -> it.error(i18n("database.creator.missing_dir.title"))
+                    databaseDirFile.exists().not() -> it.warn(
+                        i18n(
+                            "database.creator.dir_not_exist.title",
+                            databaseDirFile.name
+                        )
+                    )
+                }
+            }
+        }
+
+        private fun buildDirOpenButton() = Button().apply {
+            setConstraints(this, 2, 1)
+            contentDisplay = ContentDisplay.GRAPHIC_ONLY
+            graphic = icon("folder-open-icon")
+            minHeight = 35.0
+            tooltip = Tooltip(i18n("data.source.adder.choose.dir"))
+            setOnAction { openDirectory() }
+        }
+
+        private fun buildFullPathField() = TextField().apply {
+            setConstraints(this, 0, 3)
+            setColumnSpan(this, 3)
+            textProperty().bind(fullPath)
+            minHeight = 35.0
+            isEditable = false
+        }
+
+        private fun buildAuthenticationCheck() = CheckBox(i18n(protection.checkLabel)).apply {
+            setConstraints(this, 0, 5)
+            setColumnSpan(this, 3)
+            setHgrow(this, Priority.SOMETIMES)
+            isSelected = protection.isDefault
+            authentication.bind(selectedProperty())
+        }
+
+        private fun buildUsernameInput() = TextField().apply {
+            setMargin(this, Insets(5.0, 0.0, 0.0, 0.0))
+            setConstraints(this, 0, credentialsRow)
+            setColumnSpan(this, 3)
+            minHeight = 35.0
+            promptText = i18n("credentials.username")
+            textFormatter = SpaceValidator()
+            visibleProperty().bind(authentication)
+            managedProperty().bind(authentication)
+            username.bind(textProperty())
+            buildUsernameValidation(this)
+        }
+
+        private fun buildPasswordInput(row: Int) = PasswordField().apply {
+            setConstraints(this, 0, row)
+            setColumnSpan(this, 3)
+            minHeight = 35.0
+            promptText = i18n("credentials.password")
+            textFormatter = SpaceValidator()
+            visibleProperty().bind(authentication)
+            managedProperty().bind(authentication)
+            password.bind(textProperty())
+        }
+
+        private fun buildRepeatPasswordInput(row: Int) = PasswordField().apply {
+            setConstraints(this, 0, row)
+            setColumnSpan(this, 3)
+            minHeight = 35.0
+            promptText = i18n("database.creator.password.repeat")
+            textFormatter = SpaceValidator()
+            visibleProperty().bind(authentication)
+            managedProperty().bind(authentication)
+            passwordRepeat.bind(textProperty())
+        }
+
+        private fun buildPasswordInputs() {
+            val passwordRow = if (protection.hasUsername) credentialsRow + 1 else credentialsRow
+            val passwordInput = buildPasswordInput(passwordRow)
+            val repeatPasswordInput = buildRepeatPasswordInput(passwordRow + 1)
+            children.add(passwordInput)
+            children.add(repeatPasswordInput)
+            buildPasswordValidation(passwordInput, repeatPasswordInput)
+        }
+
+        private fun buildPasswordValidation(passwordField: TextField, repeatField: TextField) {
+            credentialsValidator.createCheck()
+                .dependsOn("pswd", passwordField.textProperty())
+                .dependsOn("rpswd", repeatField.textProperty())
+                .decorates(passwordField)
+                .decorates(repeatField)
+                .withMethod {
+
+                    val pswd: String = it["pswd"]
+                    val rpswd: String = it["rpswd"]
+                    when {
+                        pswd != rpswd ->
+                            it.error(i18n("database.creator.passwords_not_match.title"))
+                        pswd.isBlank() || rpswd.isBlank() ->
+                            it.error(i18n("database.creator.empty_password.title"))
+                    }
+                }
+                .immediate()
+        }
+
+        private fun buildUsernameValidation(usernameField: TextField) {
+            credentialsValidator.createCheck()
+                .dependsOn("usrname", usernameField.textProperty())
+                .decorates(usernameField)
+                .withMethod {
+                    val value: String = it["usrname"]
+                    when {
+                        value.isBlank() ->
+                            it.error(i18n("database.creator.empty_user_name.title"))
+                    }
+                }
+                .immediate()
+        }
+
+        private fun openDirectory() {
+            directoryChooser.showDialog(this.window)?.let { dir ->
+                databaseDir.set(dir.absolutePath)
+            }
+        }
+    }
+}
@@ -25,10 +25,18 @@ class ReadOnlyDatabase(database: Database) : Database by database {
         throw UnsupportedOperationException("Action INSERT is not supported")
     }
 
+    override fun insertRecords(records: List<Record>) {
+        throw UnsupportedOperationException("Action INSERT is not supported")
+    }
+
     override fun updateRecord(record: Record) {
         throw UnsupportedOperationException("Action UPDATE is not supported")
     }
 
+    override fun updateRecords(records: List<Record>) {
+        throw UnsupportedOperationException("Action UPDATE is not supported")
+    }
+
     override fun removeRecord(record: Record) {
         throw UnsupportedOperationException("Action DELETE is not supported")
     }
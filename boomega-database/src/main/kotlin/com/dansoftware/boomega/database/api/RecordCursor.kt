@@ -0,0 +1,67 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import java.io.Closeable
+
+/**
+ * A [RecordCursor] is a lazily evaluated, one-shot [Sequence] of [Record]s that might hold
+ * resources of the underlying data source (an open session, a result set etc.) while it's being iterated.
+ *
+ * It should always be closed after use:
+ * ```
+ * database.cursor().use { cursor ->
+ *     cursor.filter { it.isbn != null }.forEach { ... }
+ * }
+ * ```
+ *
+ * @see Database.cursor
+ */
+class RecordCursor(
+    private val iterator: Iterator<Record>,
+    private val onClose: () -> Unit = { }
+) : Sequence<Record>, Closeable {
+
+    private var isIterated = false
+    private var isClosed = false
+
+    override fun iterator(): Iterator<Record> {
+        check(!isClosed) { "The cursor is already closed" }
+        check(!isIterated) { "The cursor can be iterated only once" }
+        isIterated = true
+        return iterator
+    }
+
+    override fun close() {
+        if (!isClosed) {
+            isClosed = true
+            onClose()
+        }
+    }
+
+    companion object {
+
+        /**
+         * Creates a [RecordCursor] that iterates over the given (already loaded) records.
+         */
+        @JvmStatic
+        fun of(records: Iterable<Record>) = RecordCursor(records.iterator())
+    }
+}
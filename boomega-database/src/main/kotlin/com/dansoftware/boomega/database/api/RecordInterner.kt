@@ -0,0 +1,89 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Canonicalizes the frequently repeated values of the [Record]s (publishers, subjects, magazine names,
+ * languages & authors), so the equal values of the loaded records share the same instances.
+ *
+ * The pool only holds weak references, so the values are released as soon as no records refer to them.
+ * It's intended to be used by the [Database] implementations while materializing the records;
+ * it's thread-safe without locking, so the concurrent readers don't block each other.
+ */
+class RecordInterner {
+
+    private val pool: MutableMap<WeakEntry, WeakEntry> = ConcurrentHashMap()
+
+    /**
+     * The entries whose values have been garbage collected
+     */
+    private val clearedEntries = ReferenceQueue<Any>()
+
+    /**
+     * Replaces the repeated values of the record with their canonical instances.
+     *
+     * The author lists are canonicalized as well; they are replaced with immutable lists.
+     */
+    fun intern(record: Record): Record = record.apply {
+        purge()
+        publisher = publisher?.let(::canonical)
+        subject = subject?.let(::canonical)
+        magazineName = magazineName?.let(::canonical)
+        language = language?.let(::canonical)
+        authors = authors?.let { authors -> canonical(List.copyOf(authors.map(::canonical))) }
+    }
+
+    private fun <T : Any> canonical(value: T): T {
+        val entry = WeakEntry(value, clearedEntries)
+        while (true) {
+            val existing = pool.putIfAbsent(entry, entry) ?: return value
+            @Suppress("UNCHECKED_CAST")
+            existing.get()?.let { return it as T }
+            // the canonical value has just been collected
+            pool.remove(existing, existing)
+        }
+    }
+
+    private fun purge() {
+        generateSequence { clearedEntries.poll() }.forEach { pool.remove(it as WeakEntry) }
+    }
+
+    /**
+     * A weak reference that is equal to the other references of an equal value.
+     * A cleared reference is only equal to itself, so it can still be removed from the pool.
+     */
+    private class WeakEntry(value: Any, queue: ReferenceQueue<Any>) : WeakReference<Any>(value, queue) {
+
+        private val hash = value.hashCode()
+
+        override fun hashCode(): Int = hash
+
+        override fun equals(other: Any?): Boolean {
+            if (other === this) return true
+            if (other !is WeakEntry) return false
+            val value = get()
+            return value !== null && value == other.get()
+        }
+    }
+}
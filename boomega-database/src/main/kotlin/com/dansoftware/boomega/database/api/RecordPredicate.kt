@@ -0,0 +1,106 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.RecordProperty
+
+/**
+ * A condition on a particular [RecordProperty] of a [Record] that can be used in a [RecordQuery].
+ *
+ * For collection-valued properties (like [RecordProperty.AUTHORS]) a predicate matches
+ * the record if any of the elements matches it; an empty collection is treated as a missing value,
+ * so it's matched by a `null` value (like a missing collection).
+ *
+ * @property property the property the condition is applied to
+ */
+sealed class RecordPredicate(val property: RecordProperty<*>) {
+
+    init {
+        require(property != RecordProperty.SERVICE_CONNECTION) { "Service connections can't be queried" }
+    }
+
+    /**
+     * Whether the [property] holds multiple values
+     */
+    val isCollectionProperty: Boolean
+        get() = Collection::class.java.isAssignableFrom(property.typeClassReference)
+
+    /**
+     * Evaluates the predicate on the given record in memory.
+     */
+    fun matches(record: Record): Boolean {
+        return when (val value = property.getValue(record)) {
+            is Collection<*> -> if (value.isEmpty()) test(null) else value.any(::test)
+            else -> test(value)
+        }
+    }
+
+    protected abstract fun test(value: Any?): Boolean
+
+    /**
+     * Matches the records whose value is equal to the given one.
+     */
+    class Equals(property: RecordProperty<*>, val value: Any?) : RecordPredicate(property) {
+        override fun test(value: Any?) = value == this.value
+    }
+
+    /**
+     * Matches the records whose (textual) value contains the given text.
+     */
+    class Contains(
+        property: RecordProperty<*>,
+        val text: String,
+        val ignoreCase: Boolean = true
+    ) : RecordPredicate(property) {
+
+        init {
+            require(property.typeClassReference == String::class.java || isCollectionProperty) {
+                "Property '${property.id}' is not textual"
+            }
+        }
+
+        override fun test(value: Any?) = value is String && value.contains(text, ignoreCase)
+    }
+
+    /**
+     * Matches the records whose value is between the given bounds (inclusive).
+     * A `null` bound means the range is open in that direction.
+     */
+    class Range(property: RecordProperty<*>, val from: Any?, val to: Any?) : RecordPredicate(property) {
+
+        init {
+            require(property.isSortable) { "Property '${property.id}' is not comparable" }
+            require(from !== null || to !== null) { "At least one of the bounds must be specified" }
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        override fun test(value: Any?): Boolean {
+            val comparable = value as? Comparable<Any> ?: return false
+            return (from === null || comparable >= from) && (to === null || comparable <= to)
+        }
+    }
+
+    /**
+     * Matches the records whose value is one of the given values.
+     */
+    class In(property: RecordProperty<*>, val values: Collection<Any?>) : RecordPredicate(property) {
+        override fun test(value: Any?) = value in values
+    }
+}
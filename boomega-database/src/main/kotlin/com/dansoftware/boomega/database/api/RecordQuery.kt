@@ -0,0 +1,100 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+
+/**
+ * Describes a query of [Record]s that can be executed inside the data source
+ * (instead of filtering the loaded records in memory).
+ *
+ * @property predicates the conditions a record has to satisfy (all of them)
+ * @property sort the sort keys in order of precedence
+ * @property offset the number of matching records to skip
+ * @property limit the maximum number of records to return; `null` means no limit
+ * @see Database.find
+ */
+class RecordQuery(
+    val predicates: List<RecordPredicate> = emptyList(),
+    val sort: List<RecordSort> = emptyList(),
+    val offset: Int = 0,
+    val limit: Int? = null
+) {
+
+    init {
+        require(offset >= 0) { "Offset must not be negative" }
+        require(limit === null || limit >= 0) { "Limit must not be negative" }
+    }
+
+    /**
+     * `true` if the query gives all the records (it might only sort them).
+     */
+    val isUnrestricted: Boolean
+        get() = predicates.isEmpty() && offset == 0 && limit === null
+
+    /**
+     * Checks whether the given record satisfies all the [predicates].
+     */
+    fun matches(record: Record): Boolean = predicates.all { it.matches(record) }
+
+    /**
+     * Gives a [Comparator] representing the [sort] keys; `null` if there are no sort keys.
+     */
+    fun comparator(): Comparator<Record>? =
+        sort.map(RecordSort::comparator).reduceOrNull { acc, comparator -> acc.thenComparing(comparator) }
+
+    /**
+     * Executes the query in memory on the given records.
+     */
+    fun execute(records: Sequence<Record>): List<Record> {
+        val filtered = records.filter(::matches)
+        val sorted = comparator()?.let(filtered::sortedWith) ?: filtered
+        return sorted.drop(offset).let { if (limit === null) it else it.take(limit) }.toList()
+    }
+
+    override fun toString(): String {
+        return "RecordQuery(predicates=$predicates, sort=$sort, offset=$offset, limit=$limit)"
+    }
+
+    class Builder {
+        private val predicates: MutableList<RecordPredicate> = ArrayList()
+        private val sort: MutableList<RecordSort> = ArrayList()
+        private var offset: Int = 0
+        private var limit: Int? = null
+
+        fun where(predicate: RecordPredicate) = apply { predicates.add(predicate) }
+
+        fun sortBy(sort: RecordSort) = apply { this.sort.add(sort) }
+
+        fun offset(offset: Int) = apply { this.offset = offset }
+
+        fun limit(limit: Int?) = apply { this.limit = limit }
+
+        fun build() = RecordQuery(predicates.toList(), sort.toList(), offset, limit)
+    }
+
+    companion object {
+
+        /**
+         * A query that matches all the records
+         */
+        @JvmField
+        val ALL = RecordQuery()
+    }
+}
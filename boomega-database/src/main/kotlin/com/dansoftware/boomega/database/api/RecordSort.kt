@@ -0,0 +1,66 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.RecordProperty
+
+/**
+ * Describes the ordering of [Record]s by a particular (sortable) [RecordProperty].
+ *
+ * @property property the property to sort by; should be [sortable][RecordProperty.isSortable]
+ * @property direction the direction of the ordering
+ */
+class RecordSort(
+    val property: RecordProperty<*>,
+    val direction: Direction = Direction.ASCENDING
+) {
+
+    init {
+        require(property.isSortable) { "Property '${property.id}' is not sortable" }
+    }
+
+    /**
+     * Gives a [Comparator] that orders the records in-memory the same way as the data source would.
+     * `null` values are placed after the non-null ones.
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun comparator(): Comparator<Record> {
+        val getValue = property.getValue as (Record?) -> Comparable<Any>?
+        val sign = if (direction == Direction.ASCENDING) 1 else -1
+        return Comparator { a, b ->
+            val x = getValue(a)
+            val y = getValue(b)
+            when {
+                x === y -> 0
+                x === null -> 1
+                y === null -> -1
+                else -> sign * x.compareTo(y)
+            }
+        }
+    }
+
+    override fun toString(): String {
+        return "${property.id} $direction"
+    }
+
+    enum class Direction {
+        ASCENDING, DESCENDING
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import org.slf4j.LoggerFactory
+import java.util.concurrent.Executors
+import java.util.function.Consumer
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+/**
+ * A [Database] decorator that defers the record updates and writes them behind in batches.
+ *
+ * The pending updates are kept in memory keyed by the record ids, so the repeated updates of the
+ * same record are merged into a single write. The pending updates are flushed through the
+ * [Database.updateRecords] bulk operation when the [flushDelay] elapses after the first pending update,
+ * or right away when the number of pending records reaches [maxPending].
+ *
+ * The records looked up by their ids are served from the pending updates (as copies) if they are pending,
+ * so reading back the records just saved doesn't force a flush. Every other operation (reads, inserts, removals)
+ * flushes the pending updates first, so the underlying database is never observed in a stale state.
+ * The pending updates are also flushed when the database is closed, or when the application shuts down
+ * (in that case the underlying database is closed as well).
+ *
+ * If a deferred flush fails, the [onFlushFailed] handler is notified and the flush is retried later
+ * (with an increasing delay), until it succeeds.
+ *
+ * @param database the underlying database
+ * @param flushDelay the time (in milliseconds) the updates are deferred for
+ * @param maxPending the number of pending records that triggers an immediate flush
+ */
+class WriteBehindDatabase @JvmOverloads constructor(
+    private val database: Database,
+    private val flushDelay: Long = DEFAULT_FLUSH_DELAY,
+    private val maxPending: Int = DEFAULT_MAX_PENDING
+) : Database by database {
+
+    private val pendingUpdates: MutableMap<Long, Record> = LinkedHashMap()
+
+    /**
+     * Serializes the flushes, so an older state of a record can't overwrite a newer one
+     */
+    private val flushLock = Any()
+
+    private val flusher: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor { runnable ->
+        Thread(runnable, "database-write-behind").also { it.isDaemon = true }
+    }
+
+    private val shutdownHook = Thread(::shutdown, "database-write-behind-shutdown")
+
+    /**
+     * The number of the consecutive failed deferred flushes
+     */
+    private var failedFlushes = 0
+
+    /**
+     * Notified (on a background thread) if the deferred updates couldn't be written
+     */
+    @Volatile
+    var onFlushFailed: Consumer<RuntimeException>? = null
+
+    init {
+        require(flushDelay >= 0) { "The flush delay must not be negative" }
+        require(maxPending > 0) { "The maximum number of pending records must be positive" }
+        Runtime.getRuntime().addShutdownHook(shutdownHook)
+    }
+
+    /**
+     * The number of records waiting to be written
+     */
+    val pendingCount: Int
+        get() = synchronized(pendingUpdates) { pendingUpdates.size }
+
+    override val records: List<Record>
+        get() = flushed { database.records }
+
+    override val recordSummaries: List<Record>
+        get() = flushed { database.recordSummaries }
+
+    override fun page(offset: Int, limit: Int, sort: RecordSort?): List<Record> =
+        flushed { database.page(offset, limit, sort) }
+
+    override fun find(query: RecordQuery): List<Record> =
+        flushed { database.find(query) }
+
+    override fun findById(id: Long): Record? =
+        findByIds(listOf(id)).firstOrNull()
+
+    override fun findByIds(ids: Collection<Long>): List<Record> {
+        val pending = synchronized(pendingUpdates) { ids.mapNotNull(pendingUpdates::get) }
+        val pendingIds = pending.mapTo(HashSet()) { it.id }
+        val remaining = ids.filterNot(pendingIds::contains)
+        // waits for the flush in progress, the records being flushed are not pending anymore
+        val found = if (remaining.isEmpty()) emptyList() else synchronized(flushLock) { database.findByIds(remaining) }
+        return pending.map(Record::copy) + found
+    }
+
+    override fun findByIsbn(isbn: String): List<Record> =
+        flushed { database.findByIsbn(isbn) }
+
+    override fun cursor(): RecordCursor =
+        flushed { database.cursor() }
+
+    override fun insertRecord(record: Record) {
+        flushed { database.insertRecord(record) }
+    }
+
+    override fun insertRecords(records: List<Record>) {
+        flushed { database.insertRecords(records) }
+    }
+
+    override fun updateRecord(record: Record) {
+        updateRecords(listOf(record))
+    }
+
+    override fun updateRecords(records: List<Record>) {
+        // the records without an id can't be merged, they are written directly
+        val (deferrable, direct) = records.partition { it.id != null }
+        if (direct.isNotEmpty())
+            database.updateRecords(direct)
+        if (deferrable.isEmpty())
+            return
+
+        val pendingCount = synchronized(pendingUpdates) {
+            val wasEmpty = pendingUpdates.isEmpty()
+            deferrable.forEach { pendingUpdates[it.id!!] = it }
+            // the first update of the batch schedules the flush
+            if (wasEmpty && !flusher.isShutdown)
+                flusher.schedule(Runnable { flushDeferred() }, flushDelay, TimeUnit.MILLISECONDS)
+            pendingUpdates.size
+        }
+        if (pendingCount >= maxPending)
+            flush()
+    }
+
+    override fun removeRecord(record: Record) {
+        removeRecords(listOf(record))
+    }
+
+    override fun removeRecords(records: List<Record>) {
+        // there is no point in writing the records that are deleted anyway
+        synchronized(pendingUpdates) {
+            records.forEach { record -> record.id?.let { pendingUpdates.remove(it) } }
+        }
+        flushed { database.removeRecords(records) }
+    }
+
+    /**
+     * Writes the pending updates to the underlying database.
+     *
+     * If the write fails, the records are kept pending (unless they have been updated again in the meantime)
+     * and the exception is rethrown.
+     */
+    fun flush() {
+        synchronized(flushLock) {
+            val batch = synchronized(pendingUpdates) {
+                pendingUpdates.values.toList().also { pendingUpdates.clear() }
+            }
+            if (batch.isEmpty())
+                return
+            try {
+                database.updateRecords(batch)
+                logger.debug("Flushed {} pending record update(s)", batch.size)
+            } catch (e: RuntimeException) {
+                synchronized(pendingUpdates) {
+                    batch.forEach { pendingUpdates.putIfAbsent(it.id!!, it) }
+                }
+                throw e
+            }
+        }
+    }
+
+    /**
+     * Flushes the pending updates and closes the underlying database.
+     * The underlying database is closed even if the flush fails; in that case the exception is rethrown.
+     */
+    override fun close() {
+        flusher.shutdown()
+        try {
+            flush()
+        } finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook)
+            } catch (e: IllegalStateException) {
+                // the application is already shutting down, the hook is running
+            }
+            database.close()
+        }
+    }
+
+    /**
+     * Runs on the flusher thread; if the flush fails, the handler is notified and the flush is rescheduled.
+     */
+    private fun flushDeferred() {
+        try {
+            flush()
+            failedFlushes = 0
+        } catch (e: RuntimeException) {
+            failedFlushes++
+            val retryDelay = (flushDelay shl minOf(failedFlushes, MAX_BACKOFF_SHIFT)).coerceAtMost(MAX_RETRY_DELAY)
+            logger.error("Couldn't flush the pending record updates, retrying in {} ms", retryDelay, e)
+            onFlushFailed?.accept(e)
+            if (!flusher.isShutdown)
+                flusher.schedule(Runnable { flushDeferred() }, retryDelay, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    /**
+     * Runs when the application shuts down: writes the pending updates and closes the underlying database,
+     * so the written changes are committed.
+     */
+    private fun shutdown() {
+        try {
+            flush()
+        } catch (e: RuntimeException) {
+            logger.error("Couldn't flush the pending record updates before shutting down", e)
+        } finally {
+            if (!database.isClosed)
+                database.close()
+        }
+    }
+
+    private inline fun <T> flushed(action: () -> T): T {
+        flush()
+        return action()
+    }
+
+    companion object {
+
+        private val logger = LoggerFactory.getLogger(WriteBehindDatabase::class.java)
+
+        /**
+         * The default flush delay (in milliseconds)
+         */
+        const val DEFAULT_FLUSH_DELAY = 1000L
+
+        /**
+         * The default number of pending records that triggers an immediate flush
+         */
+        const val DEFAULT_MAX_PENDING = 500
+
+        /**
+         * The maximum delay (in milliseconds) of retrying a failed flush
+         */
+        private const val MAX_RETRY_DELAY = 60_000L
+
+        private const val MAX_BACKOFF_SHIFT = 6
+    }
+}
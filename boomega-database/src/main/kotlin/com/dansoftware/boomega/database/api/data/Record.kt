@@ -39,8 +39,7 @@ class Record(
     @field:RecordFieldTarget(Type.BOOK, Type.MAGAZINE)
     var publishedDate: LocalDate? = null,
 
-    @field:RecordFieldTarget(Type.BOOK, Type.MAGAZINE)
-    var notes: String? = null,
+    notes: String? = null,
 
     @field:RecordFieldTarget(Type.BOOK, Type.MAGAZINE)
     var rating: Int? = null,
@@ -65,9 +64,73 @@ class Record(
 
     serviceConnection: ServiceConnection? = null
 ) {
+
+    /**
+     * Loads the details of the record if they are not loaded yet; `null` if they are already loaded.
+     *
+     * @see deferDetails
+     */
+    @Volatile
+    private var detailsLoader: (() -> Record?)? = null
+
+    /**
+     * `false` if the details of the record (the [notes] and the [serviceConnection]) are not loaded yet;
+     * in this case they are loaded when they are accessed first.
+     */
+    val isDetailsLoaded: Boolean
+        get() = detailsLoader === null
+
+    /**
+     * The loader of the details; `null` if they are already loaded
+     */
+    internal val pendingDetailsLoader: (() -> Record?)?
+        get() = detailsLoader
+
+    @field:RecordFieldTarget(Type.BOOK, Type.MAGAZINE)
+    var notes: String? = notes
+        get() {
+            loadDetails()
+            return field
+        }
+        set(value) {
+            loadDetails()
+            field = value
+        }
+
+    /**
+     * The id of the Google Books volume the record is connected to.
+     *
+     * It's held by a flat field (instead of the map of the [serviceConnection]),
+     * so it's available even if the details of the record are not loaded.
+     */
+    @field:RecordFieldTarget(Type.BOOK, Type.MAGAZINE)
+    var googleBookHandle: String? = serviceConnection?.get(ServiceConnection.GOOGLE_BOOK_HANDLE)?.toString()
+
+    /**
+     * The entries of the [serviceConnection] other than the [googleBookHandle]; `null` if there are no such entries,
+     * so the records without a service connection don't allocate any maps.
+     */
     @field:RecordFieldTarget(Type.BOOK, Type.MAGAZINE)
-    var serviceConnection: ServiceConnection? = serviceConnection
-        get() = field ?: ServiceConnection().also { field = it }
+    private var connectionEntries: MutableMap<String, Any?>? = serviceConnection.otherEntries()
+
+    /**
+     * Gives the service connection of the record (including the [googleBookHandle]).
+     *
+     * The returned connection is a view of the record: it's never `null`, and its modifications are written
+     * into the record. Setting the connection copies the entries of the given one.
+     */
+    var serviceConnection: ServiceConnection?
+        get() {
+            loadDetails()
+            return ServiceConnection.backedBy(ConnectionView())
+        }
+        set(value) {
+            loadDetails()
+            // the entries are read before anything is modified, the value might be a view of this record
+            val handle = value?.get(ServiceConnection.GOOGLE_BOOK_HANDLE)?.toString()
+            connectionEntries = value.otherEntries()
+            googleBookHandle = handle
+        }
 
     constructor() : this(Type.BOOK)
 
@@ -88,23 +151,96 @@ class Record(
         null
     )
 
-    fun copy() = Record(
-        this.id,
-        this.type,
-        this.title,
-        this.language,
-        this.publisher,
-        this.publishedDate,
-        this.notes,
-        this.rating,
-        this.subtitle,
-        this.isbn,
-        this.numberOfCopies,
-        this.authors,
-        this.subject,
-        this.magazineName
-    ).also { it.serviceConnection = this.serviceConnection?.copy() }
+    /**
+     * Marks the details of the record (the [notes] and the [serviceConnection]) as not loaded.
+     * They are taken from the record given by the [loader] when they are accessed first.
+     *
+     * Used by the databases for loading the large properties of the records on demand.
+     *
+     * @param loader gives the fully loaded version of this record; `null` if it doesn't exist anymore
+     */
+    fun deferDetails(loader: () -> Record?) {
+        detailsLoader = loader
+    }
+
+    /**
+     * Takes the details (the [notes] and the [serviceConnection]) from the given fully loaded version of the record
+     * if they are not loaded yet. Used for loading the details of several records at once.
+     *
+     * @param loaded the fully loaded version of this record; `null` if it doesn't exist anymore
+     */
+    internal fun takeDetailsFrom(loaded: Record?) {
+        if (detailsLoader !== null)
+            synchronized(this) {
+                if (detailsLoader === null) return
+                // the loaded values are assigned through the setters, so it has to be cleared first
+                detailsLoader = null
+                loaded?.let(::applyDetails)
+            }
+    }
+
+    private fun loadDetails() {
+        if (detailsLoader !== null)
+            synchronized(this) {
+                val loader = detailsLoader ?: return
+                // the loaded values are assigned through the setters, so it has to be cleared first
+                detailsLoader = null
+                try {
+                    loader()?.let(::applyDetails)
+                } catch (e: RuntimeException) {
+                    detailsLoader = loader
+                    throw e
+                }
+            }
+    }
 
+    private fun applyDetails(loaded: Record) {
+        // the google book handle is always loaded, it might have been changed since then
+        val handle = googleBookHandle
+        notes = loaded.notes
+        serviceConnection = loaded.serviceConnection
+        googleBookHandle = handle
+    }
+
+    /**
+     * Copies the record. The details are not loaded by the copying: if they are not loaded yet,
+     * the copy loads them the same way (from the same record) when they are accessed first.
+     */
+    fun copy(): Record = synchronized(this) {
+        val loader = detailsLoader
+        Record(
+            this.id,
+            this.type,
+            this.title,
+            this.language,
+            this.publisher,
+            this.publishedDate,
+            null,
+            this.rating,
+            this.subtitle,
+            this.isbn,
+            this.numberOfCopies,
+            this.authors,
+            this.subject,
+            this.magazineName
+        ).also {
+            when (loader) {
+                null -> {
+                    it.notes = this.notes
+                    it.serviceConnection = this.serviceConnection
+                }
+                else -> {
+                    it.googleBookHandle = this.googleBookHandle
+                    it.deferDetails(loader)
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the textual values of the record (the [notes] are loaded if they are not loaded yet;
+     * see [com.dansoftware.boomega.database.api.loadDetails] for loading them for several records at once).
+     */
     fun values(): List<String> = listOfNotNull(
         title,
         isbn,
@@ -133,6 +269,86 @@ class Record(
         return id?.hashCode() ?: 0
     }
 
+    /**
+     * The entries of the [serviceConnection] backed by the [googleBookHandle] and the [connectionEntries].
+     */
+    private inner class ConnectionView : AbstractMutableMap<String, Any?>() {
+
+        override fun put(key: String, value: Any?): Any? {
+            if (key == ServiceConnection.GOOGLE_BOOK_HANDLE)
+                return googleBookHandle.also { googleBookHandle = value?.toString() }
+            return (connectionEntries ?: HashMap<String, Any?>().also { connectionEntries = it }).put(key, value)
+        }
+
+        override fun remove(key: String): Any? {
+            if (key == ServiceConnection.GOOGLE_BOOK_HANDLE)
+                return googleBookHandle.also { googleBookHandle = null }
+            return connectionEntries?.remove(key).also {
+                if (connectionEntries?.isEmpty() == true) connectionEntries = null
+            }
+        }
+
+        override val entries: MutableSet<MutableMap.MutableEntry<String, Any?>>
+            get() = object : AbstractMutableSet<MutableMap.MutableEntry<String, Any?>>() {
+
+                override val size: Int
+                    get() = (connectionEntries?.size ?: 0) + (if (googleBookHandle !== null) 1 else 0)
+
+                override fun add(element: MutableMap.MutableEntry<String, Any?>): Boolean {
+                    return put(element.key, element.value) != element.value
+                }
+
+                override fun iterator(): MutableIterator<MutableMap.MutableEntry<String, Any?>> {
+                    // iterates over a snapshot of the keys, so the entries can be removed during the iteration
+                    val keys = listOfNotNull(googleBookHandle?.let { ServiceConnection.GOOGLE_BOOK_HANDLE }) +
+                            connectionEntries?.keys.orEmpty()
+                    val iterator = keys.iterator()
+                    return object : MutableIterator<MutableMap.MutableEntry<String, Any?>> {
+                        private var current: String? = null
+
+                        override fun hasNext() = iterator.hasNext()
+
+                        override fun next(): MutableMap.MutableEntry<String, Any?> {
+                            val key = iterator.next().also { current = it }
+                            return ViewEntry(key)
+                        }
+
+                        override fun remove() {
+                            this@ConnectionView.remove(checkNotNull(current))
+                            current = null
+                        }
+                    }
+                }
+            }
+
+        private inner class ViewEntry(override val key: String) : MutableMap.MutableEntry<String, Any?> {
+
+            override val value: Any?
+                get() = this@ConnectionView[key]
+
+            override fun setValue(newValue: Any?): Any? = put(key, newValue)
+
+            override fun equals(other: Any?) =
+                other is Map.Entry<*, *> && other.key == key && other.value == value
+
+            override fun hashCode() = key.hashCode() xor (value?.hashCode() ?: 0)
+        }
+
+        override fun get(key: String): Any? {
+            return when (key) {
+                ServiceConnection.GOOGLE_BOOK_HANDLE -> googleBookHandle
+                else -> connectionEntries?.get(key)
+            }
+        }
+
+        override fun containsKey(key: String): Boolean {
+            return when (key) {
+                ServiceConnection.GOOGLE_BOOK_HANDLE -> googleBookHandle !== null
+                else -> connectionEntries?.containsKey(key) == true
+            }
+        }
+    }
+
     enum class Type(private val i18N: String) {
         BOOK("record.type.book"),
         MAGAZINE("record.type.magazine");
@@ -142,4 +358,12 @@ class Record(
         }
     }
 
-}
\ No newline at end of file
+}
+
+/**
+ * Gives the entries of the connection other than the [Record.googleBookHandle]; `null` if there are no such entries.
+ */
+private fun ServiceConnection?.otherEntries(): MutableMap<String, Any?>? =
+    this?.filterKeys { it != ServiceConnection.GOOGLE_BOOK_HANDLE }
+        ?.takeIf { it.isNotEmpty() }
+        ?.let { HashMap(it) }
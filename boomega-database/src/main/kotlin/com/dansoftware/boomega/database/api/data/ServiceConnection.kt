@@ -27,6 +27,27 @@ package com.dansoftware.boomega.database.api.data
  *
  * @see Record.serviceConnection
  */
-class ServiceConnection(info: Map<String, Any?> = emptyMap()) : MutableMap<String, Any?> by HashMap(info) {
-    fun copy() = ServiceConnection(HashMap(this))
-}
\ No newline at end of file
+class ServiceConnection private constructor(
+    entries: MutableMap<String, Any?>,
+    @Suppress("UNUSED_PARAMETER") backed: Unit
+) : MutableMap<String, Any?> by entries {
+
+    constructor(info: Map<String, Any?> = emptyMap()) : this(HashMap(info), Unit)
+
+    fun copy() = ServiceConnection(this)
+
+    companion object {
+
+        /**
+         * The key of the id of the Google Books volume the record is connected to.
+         *
+         * The records hold it in a separate field (see [Record.googleBookHandle]).
+         */
+        const val GOOGLE_BOOK_HANDLE = "google.book.handle"
+
+        /**
+         * Creates a connection that reads and writes the given map directly (instead of a copy of it)
+         */
+        internal fun backedBy(entries: MutableMap<String, Any?>) = ServiceConnection(entries, Unit)
+    }
+}
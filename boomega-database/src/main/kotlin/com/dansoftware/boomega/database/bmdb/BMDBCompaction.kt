@@ -0,0 +1,43 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.bmdb
+
+/**
+ * Specifies when a [BMDBDatabase] reclaims the unused space of its file automatically.
+ */
+enum class BMDBCompaction {
+
+    /**
+     * The file is only compacted on demand (see [com.dansoftware.boomega.database.api.DatabaseMeta.Action.Compact])
+     */
+    MANUAL,
+
+    /**
+     * The file is compacted in place, when the database hasn't been written for a while after some changes;
+     * it's skipped in [BMDBDurability.ON_CLOSE] mode, because the compaction commits the changes.
+     *
+     * The whole file is rewritten while the database is locked, so it's only worth it for the rarely written databases.
+     */
+    WHEN_IDLE,
+
+    /**
+     * The file is compacted in the background, after the database is closed;
+     * it's skipped if the file is opened again in the meantime.
+     */
+    ON_CLOSE
+}
@@ -0,0 +1,131 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.bmdb
+
+import org.h2.mvstore.MVMap
+import org.h2.mvstore.MVStore
+import org.slf4j.LoggerFactory
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Compacts the BMDB files that are not opened, by copying their live content into a new file,
+ * which then replaces the original one.
+ *
+ * The original file is left untouched until the copy is complete, so an interrupted compaction doesn't damage it.
+ *
+ * A compaction holds the lock of the file (see [withFileLock]), which is honoured by the opening of the databases
+ * as well, so a file is never replaced while it's opened, and two compactions of the same file don't overlap.
+ */
+internal object BMDBCompactor {
+
+    private val logger = LoggerFactory.getLogger(BMDBCompactor::class.java)
+
+    /**
+     * The number of copied entries after which the progress is reported
+     */
+    private const val PROGRESS_STEP = 1000
+
+    /**
+     * The locks of the files; they are never removed, since only a few files are used in a session
+     */
+    private val fileLocks: MutableMap<File, ReentrantLock> = ConcurrentHashMap()
+
+    /**
+     * Runs the given action while holding the lock of the given file; the action can lock the same file again.
+     */
+    fun <T> withFileLock(file: File, action: () -> T): T {
+        return fileLocks.computeIfAbsent(file.absoluteFile) { ReentrantLock() }.withLock(action)
+    }
+
+    /**
+     * Compacts the given file; the [onProgress] receives the ratio of the copied entries.
+     *
+     * @return `false` if the compaction is skipped, because the file is opened as a database
+     */
+    fun compact(file: File, onProgress: (Double) -> Unit = {}): Boolean = withFileLock(file) {
+        if (isOpened(file)) {
+            logger.debug("BMDB file '{}' is opened, it's not compacted", file)
+            return@withFileLock false
+        }
+        val compacted = file.resolveSibling("${file.name}.compacting")
+        try {
+            compacted.delete()
+            val source = MVStore.Builder().fileName(file.absolutePath).readOnly().open()
+            try {
+                val target = MVStore.Builder().fileName(compacted.absolutePath).compress().open()
+                try {
+                    copy(source, target, onProgress)
+                    target.commit()
+                } finally {
+                    target.close()
+                }
+            } finally {
+                source.close()
+            }
+            // the databases are opened through the lock of the file, but they can be created directly as well
+            if (isOpened(file)) {
+                logger.debug("BMDB file '{}' is opened during the compaction, it's not replaced", file)
+                return@withFileLock false
+            }
+            Files.move(
+                compacted.toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            )
+            logger.debug("BMDB file '{}' compacted", file)
+            true
+        } finally {
+            compacted.delete()
+        }
+    }
+
+    /**
+     * Compacts the given file on a background thread; the failures are only logged.
+     */
+    fun compactInBackground(file: File) {
+        Thread({
+            try {
+                compact(file)
+            } catch (e: RuntimeException) {
+                logger.error("Couldn't compact the BMDB file '{}'", file, e)
+            }
+        }, "bmdb-compactor").apply { isDaemon = true }.start()
+    }
+
+    private fun isOpened(file: File): Boolean = BMDBDatabase.getOpened(BMDBMeta(file)) !== null
+
+    private fun copy(source: MVStore, target: MVStore, onProgress: (Double) -> Unit) {
+        val maps: List<MVMap<Any, Any>> = source.mapNames.map { source.openMap<Any, Any>(it) }
+        val total = maps.sumOf { it.sizeAsLong() }.coerceAtLeast(1)
+        var copied = 0L
+        maps.forEach { sourceMap ->
+            val targetMap = target.openMap<Any, Any>(sourceMap.name)
+            sourceMap.forEach { (key, value) ->
+                targetMap[key] = value
+                if (++copied % PROGRESS_STEP == 0L)
+                    onProgress(copied.toDouble() / total)
+            }
+        }
+    }
+}
@@ -19,17 +19,50 @@
 package com.dansoftware.boomega.database.bmdb
 
 import org.dizitart.no2.Nitrite
+import org.dizitart.no2.exceptions.NitriteException
+import org.slf4j.LoggerFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 
-class BMDBDatabase(
+/**
+ * The [NitriteDatabase] stored in a BMDB file.
+ *
+ * The changes are committed to the file as the given [BMDBDurability] specifies;
+ * in [BMDBDurability.GROUP_COMMIT] mode a background committer commits them every [groupCommitInterval]
+ * milliseconds, or right away when [groupCommitSize] records are written since the last commit.
+ *
+ * In [BMDBDurability.GROUP_COMMIT] mode the background writer of the underlying MVStore is kept as well:
+ * besides committing, it rewrites the sparsely filled chunks, so the file doesn't grow unbounded
+ * even with the [BMDBCompaction.MANUAL] compaction. In the other modes the commits are controlled
+ * by the durability mode, so the background writer is disabled, and the unused space is reclaimed
+ * only by the compaction.
+ *
+ * The file is compacted automatically as the given [BMDBCompaction] specifies;
+ * in [BMDBCompaction.WHEN_IDLE] mode it's compacted when there were no writes for [idleCompactionDelay] milliseconds.
+ */
+class BMDBDatabase @JvmOverloads constructor(
     username: String?,
     password: String?,
     meta: BMDBMeta,
     isCompressed: Boolean = true,
-    autoCommitBufferSize: Int = 1024
+    autoCommitBufferSize: Int = 1024,
+    private val durability: BMDBDurability = BMDBDurability.GROUP_COMMIT,
+    private val groupCommitInterval: Long = DEFAULT_GROUP_COMMIT_INTERVAL,
+    private val groupCommitSize: Int = DEFAULT_GROUP_COMMIT_SIZE,
+    private val compaction: BMDBCompaction = BMDBCompaction.MANUAL,
+    private val idleCompactionDelay: Long = DEFAULT_IDLE_COMPACTION_DELAY
 ) : NitriteDatabase(
     Nitrite.builder()
         .autoCommitBufferSize(autoCommitBufferSize)
+        // the background writer also reclaims the space of the sparse chunks, so it's only disabled
+        // if the durability mode doesn't allow commits in the background
+        .apply { if (durability != BMDBDurability.GROUP_COMMIT) disableAutoCommit() }
         .filePath(meta.file)
+        .nitriteMapper(NitriteRecordMapper())
         .apply { if (isCompressed) compressed() }
         .run {
             if (username === null || password === null)
@@ -38,4 +71,125 @@ class BMDBDatabase(
                 openOrCreate(username, password)
         },
     meta
-)
+) {
+
+    private val bmdbMeta: BMDBMeta = meta
+
+    private val uncommittedOperations = AtomicInteger()
+
+    private val isIdleCompactionEnabled =
+        compaction == BMDBCompaction.WHEN_IDLE && durability != BMDBDurability.ON_CLOSE
+
+    private val isCompactionPending = AtomicBoolean()
+
+    @Volatile
+    private var lastWriteTime = System.nanoTime()
+
+    private val scheduler: ScheduledExecutorService? =
+        if (durability == BMDBDurability.GROUP_COMMIT || isIdleCompactionEnabled)
+            Executors.newSingleThreadScheduledExecutor { runnable ->
+                Thread(runnable, "bmdb-maintenance").also { it.isDaemon = true }
+            }
+        else null
+
+    init {
+        require(groupCommitInterval > 0) { "The group commit interval must be positive" }
+        require(groupCommitSize > 0) { "The group commit size must be positive" }
+        require(idleCompactionDelay > 0) { "The idle compaction delay must be positive" }
+        if (durability == BMDBDurability.GROUP_COMMIT)
+            scheduler?.scheduleWithFixedDelay(
+                { if (uncommittedOperations.get() > 0) commitGroupInBackground() },
+                groupCommitInterval,
+                groupCommitInterval,
+                TimeUnit.MILLISECONDS
+            )
+        if (isIdleCompactionEnabled)
+            scheduler?.scheduleWithFixedDelay(
+                ::compactIfIdle,
+                idleCompactionDelay,
+                idleCompactionDelay,
+                TimeUnit.MILLISECONDS
+            )
+        openedDatabases[meta] = this
+    }
+
+    override fun onWrite(operations: Int) {
+        lastWriteTime = System.nanoTime()
+        isCompactionPending.set(true)
+        when (durability) {
+            BMDBDurability.SYNC -> commit()
+            BMDBDurability.GROUP_COMMIT ->
+                if (uncommittedOperations.addAndGet(operations) >= groupCommitSize) commitGroup()
+            BMDBDurability.ON_CLOSE -> {}
+        }
+    }
+
+    private fun commitGroup() {
+        // the writes performed in the meantime are committed as well
+        val operations = uncommittedOperations.getAndSet(0)
+        try {
+            commit()
+        } catch (e: NitriteException) {
+            // the group is committed again by the next attempt
+            uncommittedOperations.addAndGet(operations)
+            throw e
+        }
+    }
+
+    private fun commitGroupInBackground() {
+        try {
+            commitGroup()
+        } catch (e: NitriteException) {
+            logger.error("Couldn't commit the changes of the database", e)
+        }
+    }
+
+    private fun compactIfIdle() {
+        val idleTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastWriteTime)
+        if (idleTime >= idleCompactionDelay && isCompactionPending.compareAndSet(true, false)) {
+            try {
+                compact()
+            } catch (e: NitriteException) {
+                logger.error("Couldn't compact the database", e)
+            }
+        }
+    }
+
+    /**
+     * Closes the database; the uncommitted changes are committed regardless of the durability mode.
+     */
+    override fun close() {
+        scheduler?.shutdown()
+        super.close()
+        openedDatabases.remove(bmdbMeta, this)
+        if (compaction == BMDBCompaction.ON_CLOSE)
+            BMDBCompactor.compactInBackground(bmdbMeta.file)
+    }
+
+    companion object {
+
+        private val logger = LoggerFactory.getLogger(BMDBDatabase::class.java)
+
+        /**
+         * The default time (in milliseconds) between two group commits
+         */
+        const val DEFAULT_GROUP_COMMIT_INTERVAL = 1000L
+
+        /**
+         * The default number of written records that triggers a group commit right away
+         */
+        const val DEFAULT_GROUP_COMMIT_SIZE = 1000
+
+        /**
+         * The default time (in milliseconds) without writes after which the file is compacted
+         */
+        const val DEFAULT_IDLE_COMPACTION_DELAY = 60_000L
+
+        private val openedDatabases: MutableMap<BMDBMeta, BMDBDatabase> = ConcurrentHashMap()
+
+        /**
+         * Gives the currently opened [BMDBDatabase] of the given meta; `null` if it's not opened
+         */
+        internal fun getOpened(meta: BMDBMeta): BMDBDatabase? = openedDatabases[meta]
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.bmdb
+
+/**
+ * Specifies when the changes of a [BMDBDatabase] are committed to the file,
+ * trading durability for write throughput.
+ */
+enum class BMDBDurability {
+
+    /**
+     * Every write is committed right away; nothing is lost if the application crashes,
+     * but each write pays the cost of a commit.
+     */
+    SYNC,
+
+    /**
+     * The writes are committed together by a background committer, periodically or when enough
+     * of them are accumulated; a crash might lose the writes of the last group.
+     * The background writer of the store also commits, and reclaims the space of the sparsely filled chunks.
+     */
+    GROUP_COMMIT,
+
+    /**
+     * The writes are committed only when the database is closed (or when the write buffer fills up);
+     * the fastest mode, but a crash might lose the changes of the whole session.
+     */
+    ON_CLOSE
+}
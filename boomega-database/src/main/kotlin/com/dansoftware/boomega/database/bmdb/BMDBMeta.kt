@@ -49,6 +49,8 @@ class BMDBMeta(override val name: String, val file: File) : DatabaseMeta() {
     override fun isActionSupported(action: Action<*>): Boolean {
         return when (action) {
             Action.SizeInBytes -> this[Action.Exists]
+            Action.RebuildIndexes -> BMDBDatabase.getOpened(this) !== null
+            is Action.Compact -> this[Action.Exists]
             else -> super.isActionSupported(action)
         }
     }
@@ -59,9 +61,29 @@ class BMDBMeta(override val name: String, val file: File) : DatabaseMeta() {
             Action.SizeInBytes -> (if (this[Action.Exists]) file.length() else -1) as T
             Action.OpenInExternalApplication -> file.revealInExplorer() as T
             Action.Exists -> file.exists().and(!file.isDirectory) as T
+            Action.RebuildIndexes -> openedDatabase().rebuildIndexes() as T
+            is Action.Compact -> compact(action.onProgress) as T
+            else -> throw UnsupportedOperationException()
         }
     }
 
+    /**
+     * Compacts the opened database in place, or the file through a copy if it's not opened.
+     * The file is locked meanwhile, so it's not opened (or compacted by others) during the compaction.
+     */
+    private fun compact(onProgress: (Double) -> Unit): Long = BMDBCompactor.withFileLock(file) {
+        val sizeBefore = file.length()
+        when (val database = BMDBDatabase.getOpened(this)) {
+            null -> BMDBCompactor.compact(file, onProgress)
+            else -> database.compact(onProgress)
+        }
+        onProgress(1.0)
+        sizeBefore - file.length()
+    }
+
+    private fun openedDatabase(): BMDBDatabase =
+        BMDBDatabase.getOpened(this) ?: throw IllegalStateException("The database '$this' is not opened")
+
     override fun equals(other: Any?): Boolean {
         return when {
             this === other -> true
@@ -74,6 +74,46 @@ object BMDBProvider : DatabaseProvider<BMDBMeta> {
         defaultValue = 1024
     )
 
+    /**
+     * Represents the "durability" configuration; specifies when the changes are committed to the file
+     */
+    val DURABILITY = DatabaseOption(
+        id = "drblty",
+        name = i18n("database.bmdb.option.durability"),
+        type = BMDBDurability::class.java,
+        defaultValue = BMDBDurability.GROUP_COMMIT
+    )
+
+    /**
+     * Represents the "group commit interval" configuration; the time (in milliseconds) between two group commits
+     */
+    val GROUP_COMMIT_INTERVAL = DatabaseOption(
+        id = "gcintrvl",
+        name = i18n("database.bmdb.option.group_commit_interval"),
+        type = Long::class.java,
+        defaultValue = BMDBDatabase.DEFAULT_GROUP_COMMIT_INTERVAL
+    )
+
+    /**
+     * Represents the "group commit size" configuration; the number of written records that triggers a group commit
+     */
+    val GROUP_COMMIT_SIZE = DatabaseOption(
+        id = "gcsz",
+        name = i18n("database.bmdb.option.group_commit_size"),
+        type = Int::class.java,
+        defaultValue = BMDBDatabase.DEFAULT_GROUP_COMMIT_SIZE
+    )
+
+    /**
+     * Represents the "compaction" configuration; specifies when the unused space of the file is reclaimed
+     */
+    val COMPACTION = DatabaseOption(
+        id = "cmpctn",
+        name = i18n("database.bmdb.option.compaction"),
+        type = BMDBCompaction::class.java,
+        defaultValue = BMDBCompaction.MANUAL
+    )
+
     override val name: String
         get() = "BMDB"
 
@@ -82,7 +122,11 @@ object BMDBProvider : DatabaseProvider<BMDBMeta> {
 
     override val availableOptions: List<DatabaseOption<*>> = listOf(
         COMPRESSED,
-        AUTO_COMMIT_BUFFER_SIZE
+        AUTO_COMMIT_BUFFER_SIZE,
+        DURABILITY,
+        GROUP_COMMIT_INTERVAL,
+        GROUP_COMMIT_SIZE,
+        COMPACTION
     )
 
     override val fields: List<DatabaseField<*>> = listOf(
@@ -100,13 +144,20 @@ object BMDBProvider : DatabaseProvider<BMDBMeta> {
         options: Map<DatabaseOption<*>, Any>
     ): Database {
         try {
-            return BMDBDatabase(
-                credentials[USERNAME_FIELD]?.toString()?.takeIf { it.isNotBlank() },
-                credentials[PASSWORD_FIELD]?.toString()?.takeIf { it.isNotBlank() },
-                meta,
-                isCompressed = COMPRESSED.getValueFrom(options),
-                autoCommitBufferSize = AUTO_COMMIT_BUFFER_SIZE.getValueFrom(options)
-            )
+            // the file isn't opened while it's being compacted
+            return BMDBCompactor.withFileLock(meta.file) {
+                BMDBDatabase(
+                    credentials[USERNAME_FIELD]?.toString()?.takeIf { it.isNotBlank() },
+                    credentials[PASSWORD_FIELD]?.toString()?.takeIf { it.isNotBlank() },
+                    meta,
+                    isCompressed = COMPRESSED.getValueFrom(options),
+                    autoCommitBufferSize = AUTO_COMMIT_BUFFER_SIZE.getValueFrom(options),
+                    durability = DURABILITY.getValueFrom(options),
+                    groupCommitInterval = GROUP_COMMIT_INTERVAL.getValueFrom(options),
+                    groupCommitSize = GROUP_COMMIT_SIZE.getValueFrom(options),
+                    compaction = COMPACTION.getValueFrom(options)
+                )
+            }
         } catch (e: NitriteException) {
             throw DatabaseConstructionException(localizedMessage = e.specificMessage(), cause = e)
         }
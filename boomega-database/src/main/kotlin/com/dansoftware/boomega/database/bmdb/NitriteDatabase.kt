@@ -19,84 +19,298 @@ package com.dansoftware.boomega.database.bmdb
 
 import com.dansoftware.boomega.database.api.*
 import com.dansoftware.boomega.database.api.data.Record
+import org.dizitart.no2.IndexOptions
+import org.dizitart.no2.IndexType
 import org.dizitart.no2.Nitrite
+import org.dizitart.no2.NitriteId
+import org.dizitart.no2.exceptions.NitriteException
 import org.dizitart.no2.objects.ObjectRepository
 import org.slf4j.LoggerFactory
 import java.util.Collections.unmodifiableList
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import kotlin.concurrent.read
+import kotlin.concurrent.write
 
 /**
  * A NitriteDatabase is a [Database] implementation that basically wraps the
  * Nitrite database api.
  *
+ * The access of the repository is guarded by a read-write lock: the read operations can run concurrently,
+ * while the write operations are exclusive. The listeners are notified asynchronously through a [DatabaseEventBus].
+ *
  * @author Daniel Gyorffy
  * @see Nitrite
  */
-open class NitriteDatabase(
+open class NitriteDatabase @JvmOverloads constructor(
     private val nitriteClient: Nitrite,
-    override val meta: DatabaseMeta
+    override val meta: DatabaseMeta,
+    private val eventBus: DatabaseEventBus = DatabaseEventBus()
 ) : Database {
 
-    private val listeners: MutableSet<DatabaseChangeListener> = HashSet()
+    private val lock = ReentrantReadWriteLock()
+
+    private val interner = RecordInterner()
 
     private val recordRepository: ObjectRepository<NitriteRecord> =
         nitriteClient.getRepository(REPOSITORY_KEY, NitriteRecord::class.java)
 
+    init {
+        createMissingIndexes()
+    }
+
     override val totalRecordCount: Int
-        get() = recordRepository.find().totalCount()
+        get() = lock.read { recordRepository.size().toInt() }
 
     override val records: List<Record>
-        get() = recordRepository.find().map { it.toBaseRecord() }
+        get() = lock.read { recordRepository.find().map { it.materialize() } }
+
+    /**
+     * The documents are converted directly, skipping the notes & the service connections.
+     */
+    override val recordSummaries: List<Record>
+        get() = lock.read {
+            recordRepository.documentCollection.find().map { document ->
+                interner.intern(NitriteRecordMapper.toRecord(document, withDetails = false))
+                    .apply { deferDetailsTo(this@NitriteDatabase) }
+            }
+        }
 
     override val isClosed: Boolean
         get() = nitriteClient.isClosed
 
-    @Synchronized
+    override fun find(query: RecordQuery): List<Record> {
+        if (query.limit == 0)
+            return emptyList()
+
+        return lock.read {
+            val filter = query.asObjectFilter()
+
+            // the ordering nitrite can't do (& the slicing after it) is done in memory
+            if (!query.isSortableByNitrite) {
+                val found = (filter?.let(recordRepository::find) ?: recordRepository.find())
+                    .asSequence()
+                    .map { it.materialize() }
+                return RecordQuery(sort = query.sort, offset = query.offset, limit = query.limit).execute(found)
+            }
+
+            // the filter is evaluated once, and only the documents of the requested slice are materialized
+            val sortOptions = query.asSortOptions()
+            when {
+                filter === null && sortOptions === null -> recordRepository.find()
+                filter === null -> recordRepository.find(sortOptions)
+                sortOptions === null -> recordRepository.find(filter)
+                else -> recordRepository.find(filter, sortOptions)
+            }.asSequence()
+                .drop(query.offset)
+                .let { found -> query.limit?.let(found::take) ?: found }
+                .map { it.materialize() }
+                .toList()
+        }
+    }
+
+    override fun findById(id: Long): Record? = lock.read {
+        recordRepository.getById(NitriteId.createId(id))?.materialize()
+    }
+
+    override fun findByIds(ids: Collection<Long>): List<Record> {
+        if (ids.isEmpty()) return emptyList()
+        return lock.read { recordRepository.find(NitriteIdFilter(ids)).map { it.materialize() } }
+    }
+
+    /**
+     * The returned cursor doesn't hold the lock while it's being iterated,
+     * so the writes performed in the meantime might be visible through it.
+     */
+    override fun cursor(): RecordCursor {
+        return RecordCursor(
+            recordRepository.find()
+                .asSequence()
+                .map { it.materialize() }
+                .iterator()
+        )
+    }
+
     override fun insertRecord(record: Record) {
-        val nitriteRecord = NitriteRecord(record)
-        recordRepository.insert(nitriteRecord)
-        record.id = nitriteRecord.id!!.idValue
+        listOf(record).loadDetails()
+        lock.write {
+            val nitriteRecord = NitriteRecord(record)
+            recordRepository.insert(nitriteRecord)
+            record.id = nitriteRecord.id!!.idValue
+            onWrite(1)
+        }
         notifyListeners(DatabaseChangeType.INSERT, listOf(record))
     }
 
-    @Synchronized
+    override fun insertRecords(records: List<Record>) {
+        if (records.isEmpty()) return
+        records.loadDetails()
+        lock.write {
+            val nitriteRecords = records.map(::NitriteRecord)
+            recordRepository.insert(nitriteRecords.toTypedArray())
+            records.forEachIndexed { i, record -> record.id = nitriteRecords[i].id!!.idValue }
+            onWrite(records.size)
+        }
+        notifyListeners(DatabaseChangeType.INSERT, unmodifiableList(records))
+    }
+
     override fun updateRecord(record: Record) {
-        recordRepository.update(NitriteRecord(record))
+        listOf(record).loadDetails()
+        lock.write {
+            recordRepository.update(NitriteRecord(record))
+            onWrite(1)
+        }
         notifyListeners(DatabaseChangeType.UPDATE, listOf(record))
     }
 
-    @Synchronized
+    override fun updateRecords(records: List<Record>) {
+        if (records.isEmpty()) return
+        records.loadDetails()
+        lock.write {
+            records.forEach { recordRepository.update(NitriteRecord(it)) }
+            onWrite(records.size)
+        }
+        notifyListeners(DatabaseChangeType.UPDATE, unmodifiableList(records))
+    }
+
     override fun removeRecord(record: Record) {
-        recordRepository.remove(NitriteRecord(record))
-        notifyListeners(DatabaseChangeType.DELETE, listOf(record))
+        // removed by the id, so the details of the record are not loaded for building its document
+        removeRecords(listOf(record))
     }
 
-    @Synchronized
     override fun removeRecords(records: List<Record>) {
-        records.map(::NitriteRecord).forEach(recordRepository::remove)
+        val ids = records.mapNotNull(Record::id)
+        if (ids.isNotEmpty())
+            lock.write {
+                recordRepository.remove(NitriteIdFilter(ids))
+                onWrite(ids.size)
+            }
         notifyListeners(DatabaseChangeType.DELETE, unmodifiableList(records))
     }
 
-    @Synchronized
     override fun close() {
-        nitriteClient.close()
+        lock.write { nitriteClient.close() }
+        eventBus.close()
     }
 
-    @Synchronized
     override fun addListener(listener: DatabaseChangeListener) {
-        listeners.add(listener)
+        eventBus.addListener(listener)
     }
 
-    @Synchronized
     override fun removeListener(listener: DatabaseChangeListener) {
-        listeners.remove(listener)
+        eventBus.removeListener(listener)
+    }
+
+    /**
+     * Called after the given number of records have been written, while the write lock is still held.
+     * Subclasses can use it to control when the changes are committed; by default it does nothing.
+     */
+    protected open fun onWrite(operations: Int) {
+    }
+
+    /**
+     * Commits the uncommitted changes to the underlying store (if the database is not closed yet).
+     */
+    protected fun commit() {
+        lock.write {
+            if (!nitriteClient.isClosed)
+                nitriteClient.commit()
+        }
+    }
+
+    /**
+     * Tells whether there are changes that are not committed to the underlying store yet.
+     */
+    fun hasUnsavedChanges(): Boolean {
+        return lock.read { !nitriteClient.isClosed && nitriteClient.hasUnsavedChanges() }
+    }
+
+    /**
+     * Gives the record handed out by the database (with its repeated values canonicalized)
+     */
+    private fun NitriteRecord.materialize(): Record {
+        return interner.intern(toBaseRecord())
     }
 
     private fun notifyListeners(eventType: DatabaseChangeType, items: List<Record>) {
-        listeners.forEach { it.onChange(DatabaseChangeEvent(eventType, items)) }
+        eventBus.publish(eventType, items)
+    }
+
+    /**
+     * Rebuilds the indexes of the records in the background.
+     */
+    fun rebuildIndexes() {
+        lock.write {
+            INDEXES.keys
+                .filter(recordRepository::hasIndex)
+                .forEach { recordRepository.rebuildIndex(it, true) }
+        }
+    }
+
+    /**
+     * Compacts the underlying store in place; the uncommitted changes are committed as well.
+     *
+     * The store is compacted in a single step that doesn't report its progress, so the [onProgress]
+     * only receives the [DatabaseMeta.Action.Compact.INDETERMINATE_PROGRESS] when it's started.
+     */
+    @JvmOverloads
+    fun compact(onProgress: (Double) -> Unit = {}) {
+        lock.write {
+            onProgress(DatabaseMeta.Action.Compact.INDETERMINATE_PROGRESS)
+            nitriteClient.commit()
+            nitriteClient.compact()
+        }
+    }
+
+    /**
+     * Creates the [INDEXES] that don't exist yet. If the repository already contains records,
+     * the indexes are built in the background.
+     *
+     * The indexes that are not (or not in the same form) among the [INDEXES] are dropped first,
+     * like the full-text indexes created by the earlier versions.
+     */
+    private fun createMissingIndexes() {
+        recordRepository.listIndices()
+            .filter { INDEXES[it.field] != it.indexType }
+            .forEach {
+                try {
+                    logger.debug("Dropping {} index on field '{}'", it.indexType, it.field)
+                    recordRepository.dropIndex(it.field)
+                } catch (e: NitriteException) {
+                    logger.error("Couldn't drop index on field '{}'", it.field, e)
+                }
+            }
+
+        val async = recordRepository.size() > 0
+        INDEXES.filterKeys { !recordRepository.hasIndex(it) }.forEach { (field, type) ->
+            try {
+                logger.debug("Creating {} index on field '{}'", type, field)
+                recordRepository.createIndex(field, IndexOptions.indexOptions(type, async))
+            } catch (e: NitriteException) {
+                logger.error("Couldn't create index on field '{}'", field, e)
+            }
+        }
     }
 
     companion object {
         private val logger = LoggerFactory.getLogger(NitriteDatabase::class.java)
         private const val REPOSITORY_KEY = "BoomegaRecords"
+
+        /**
+         * The indexed fields of the records and the type of their indexes.
+         *
+         * The authors are not indexed, because nitrite doesn't support indexes on array fields.
+         *
+         * The text fields are not full-text indexed: a full-text index is keyed by the tokens of the values,
+         * so nitrite would evaluate the equality filters through it incorrectly, while the substring searches
+         * (see [RecordPredicate.Contains]) couldn't use it anyway. The notes are not indexed at all,
+         * they are only searched by substrings.
+         */
+        private val INDEXES = mapOf(
+            "title" to IndexType.NonUnique,
+            "subtitle" to IndexType.NonUnique,
+            "isbn" to IndexType.NonUnique,
+            "publisher" to IndexType.NonUnique,
+            "publishedDate" to IndexType.NonUnique
+        )
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.bmdb
+
+import org.dizitart.no2.Document
+import org.dizitart.no2.NitriteId
+import org.dizitart.no2.internals.NitriteService
+import org.dizitart.no2.mapper.NitriteMapper
+import org.dizitart.no2.objects.ObjectFilter
+import org.dizitart.no2.store.NitriteMap
+
+/**
+ * An [ObjectFilter] that matches the documents without a value for the given field.
+ *
+ * Unlike the equality filter, it never looks up an index (the indexes don't hold the `null` values),
+ * so it treats the missing and the `null` fields the same way as the in-memory evaluation of the queries.
+ * An empty array field is treated as a missing value as well.
+ */
+internal class NitriteNullFilter(private val field: String) : ObjectFilter {
+
+    override fun apply(documentMap: NitriteMap<NitriteId, Document>): Set<NitriteId> {
+        return documentMap.entrySet()
+            .filter { (_, document) -> document[field].let { it === null || it is Collection<*> && it.isEmpty() } }
+            .mapTo(LinkedHashSet()) { it.key }
+    }
+
+    override fun setNitriteService(nitriteService: NitriteService) {
+    }
+
+    override fun setNitriteMapper(nitriteMapper: NitriteMapper) {
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb
+
+import com.dansoftware.boomega.database.api.RecordPredicate
+import com.dansoftware.boomega.database.api.RecordQuery
+import com.dansoftware.boomega.database.api.RecordSort
+import org.dizitart.no2.FindOptions
+import org.dizitart.no2.NullOrder
+import org.dizitart.no2.SortOrder
+import org.dizitart.no2.objects.ObjectFilter
+import org.dizitart.no2.objects.filters.ObjectFilters
+import java.time.LocalDate
+import java.time.format.DateTimeFormatter
+import java.util.*
+import java.util.regex.Pattern
+
+/**
+ * Represents the element of an array-field in the nitrite filters
+ */
+private const val ARRAY_ELEMENT = "$"
+
+/**
+ * Gives the [ObjectFilter] representing all the predicates of the query; `null` if the query doesn't filter.
+ */
+internal fun RecordQuery.asObjectFilter(): ObjectFilter? {
+    val filters = predicates.map { it.asObjectFilter() }
+    return when (filters.size) {
+        0 -> null
+        1 -> filters[0]
+        else -> ObjectFilters.and(*filters.toTypedArray())
+    }
+}
+
+/**
+ * `true` if nitrite can sort the records the same way as the in-memory evaluation of the query.
+ *
+ * Nitrite can only sort by a single field, and it would order the enum values by their stored names
+ * instead of their declaration order.
+ */
+internal val RecordQuery.isSortableByNitrite: Boolean
+    get() = sort.size <= 1 && sort.none { it.property.typeClassReference.isEnum }
+
+/**
+ * Gives the [FindOptions] representing the sorting of the query; `null` if the query doesn't sort.
+ *
+ * The limits are not included, because nitrite refuses to skip more documents than the result has;
+ * the found documents have to be sliced by the caller.
+ *
+ * The query must be [sortable by nitrite][isSortableByNitrite].
+ */
+internal fun RecordQuery.asSortOptions(): FindOptions? {
+    require(isSortableByNitrite) { "Nitrite can't sort by $sort" }
+    return sort.singleOrNull()?.let {
+        FindOptions.sort(it.property.id, it.direction.asSortOrder(), NullOrder.Last)
+    }
+}
+
+internal fun RecordSort.Direction.asSortOrder(): SortOrder = when (this) {
+    RecordSort.Direction.ASCENDING -> SortOrder.Ascending
+    RecordSort.Direction.DESCENDING -> SortOrder.Descending
+}
+
+private fun RecordPredicate.asObjectFilter(): ObjectFilter {
+    // an empty set of values matches nothing
+    if (this is RecordPredicate.In && values.isEmpty())
+        return NitriteIdFilter(emptyList())
+
+    // the records without elements are matched on the array itself
+    if (isCollectionProperty && this is RecordPredicate.Equals && value === null)
+        return NitriteNullFilter(property.id)
+    if (isCollectionProperty && this is RecordPredicate.In && null in values)
+        return ObjectFilters.or(
+            RecordPredicate.In(property, values.filterNotNull()).asObjectFilter(),
+            NitriteNullFilter(property.id)
+        )
+
+    val field = if (isCollectionProperty) ARRAY_ELEMENT else property.id
+    val filter = when (this) {
+        is RecordPredicate.Equals -> when (value) {
+            null -> NitriteNullFilter(field)
+            else -> ObjectFilters.eq(field, value.asDocumentValue())
+        }
+        is RecordPredicate.Contains -> ObjectFilters.regex(field, containsRegex(text, ignoreCase))
+        is RecordPredicate.In -> {
+            val nonNullValues = values.filterNotNull()
+            val inFilter = nonNullValues.takeIf { it.isNotEmpty() }?.let {
+                ObjectFilters.`in`(field, *it.map { value -> value.asDocumentValue() }.toTypedArray())
+            }
+            val nullFilter = if (null in values) NitriteNullFilter(field) else null
+            when {
+                inFilter === null -> nullFilter ?: ObjectFilters.eq(field, null)
+                nullFilter === null -> inFilter
+                else -> ObjectFilters.or(inFilter, nullFilter)
+            }
+        }
+        is RecordPredicate.Range -> listOfNotNull(
+            from?.let { ObjectFilters.gte(field, it.asDocumentValue()) },
+            to?.let { ObjectFilters.lte(field, it.asDocumentValue()) }
+        ).let {
+            if (it.size == 1) it[0] else ObjectFilters.and(*it.toTypedArray())
+        }
+    }
+    return if (isCollectionProperty) ObjectFilters.elemMatch(property.id, filter) else filter
+}
+
+private fun containsRegex(text: String, ignoreCase: Boolean): String {
+    val flags = if (ignoreCase) "(?siu)" else "(?s)"
+    return "$flags.*${Pattern.quote(text)}.*"
+}
+
+/**
+ * Converts the given value into the form it's stored in the nitrite documents.
+ *
+ * @see NitriteRecord
+ */
+private fun Any?.asDocumentValue(): Any? = when (this) {
+    is LocalDate -> format(DateTimeFormatter.ISO_LOCAL_DATE)
+    is Locale -> toString()
+    is Enum<*> -> name
+    else -> this
+}
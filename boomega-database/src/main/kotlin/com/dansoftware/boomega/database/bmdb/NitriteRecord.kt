@@ -27,120 +27,120 @@ import org.dizitart.no2.objects.Id
 import java.time.LocalDate
 import java.util.*
 
-class NitriteRecord @JvmOverloads constructor(@field:JsonIgnore private val baseRecord: Record? = null) {
+/**
+ * The object stored in the nitrite repository.
+ *
+ * It doesn't hold the data of the record by itself, it's just a view of the wrapped [Record]:
+ * the properties read and write the fields of the [Record] directly, so no copies are made
+ * when the records are stored or loaded.
+ *
+ * @see NitriteRecordMapper
+ */
+class NitriteRecord @JvmOverloads constructor(@field:JsonIgnore private val baseRecord: Record = Record()) {
 
+    /**
+     * Nitrite sets the generated id directly through the field when the record is inserted,
+     * so in that case it's not propagated to the [Record].
+     */
     @field:Id
-    var id: NitriteId? = baseRecord?.id?.let(NitriteId::createId)
+    var id: NitriteId? = baseRecord.id?.let(NitriteId::createId)
         set(value) {
             field = value
-            baseRecord?.id = value?.idValue
+            baseRecord.id = value?.idValue
         }
 
-    var type: Type = baseRecord?.type ?: Type.BOOK
+    var type: Type
+        get() = baseRecord.type
         set(value) {
-            field = value
-            baseRecord?.type = value
+            baseRecord.type = value
         }
 
-    var title: String? = baseRecord?.title
+    var title: String?
+        get() = baseRecord.title
         set(value) {
-            field = value
-            baseRecord?.title = value
+            baseRecord.title = value
         }
 
-    var language: Locale? = baseRecord?.language
+    var language: Locale?
+        get() = baseRecord.language
         set(value) {
-            field = value
-            baseRecord?.language = language
+            baseRecord.language = value
         }
 
-    var publisher: String? = baseRecord?.publisher
+    var publisher: String?
+        get() = baseRecord.publisher
         set(value) {
-            field = value
-            baseRecord?.publisher = value
+            baseRecord.publisher = value
         }
 
-    // for allowing the nitrite database to serialize/deserialize the LocalDate object
-    @field:com.fasterxml.jackson.databind.annotation.JsonDeserialize(using = LocalDateDeserializer::class)
-    @field:com.fasterxml.jackson.databind.annotation.JsonSerialize(using = LocalDateSerializer::class)
-    var publishedDate: LocalDate? = baseRecord?.publishedDate
+    // for allowing the jackson mapper to serialize/deserialize the LocalDate object
+    @get:com.fasterxml.jackson.databind.annotation.JsonSerialize(using = LocalDateSerializer::class)
+    @set:com.fasterxml.jackson.databind.annotation.JsonDeserialize(using = LocalDateDeserializer::class)
+    var publishedDate: LocalDate?
+        get() = baseRecord.publishedDate
         set(value) {
-            field = value
-            baseRecord?.publishedDate = value
+            baseRecord.publishedDate = value
         }
 
-    var notes: String? = baseRecord?.notes
+    var notes: String?
+        get() = baseRecord.notes
         set(value) {
-            field = value
-            baseRecord?.notes = value
+            baseRecord.notes = value
         }
 
-    var rating: Int? = baseRecord?.rating
+    var rating: Int?
+        get() = baseRecord.rating
         set(value) {
-            field = value
-            baseRecord?.rating = value
+            baseRecord.rating = value
         }
 
-    var subtitle: String? = baseRecord?.subtitle
+    var subtitle: String?
+        get() = baseRecord.subtitle
         set(value) {
-            field = value
-            baseRecord?.subtitle = value
+            baseRecord.subtitle = value
         }
 
-    var isbn: String? = baseRecord?.isbn
+    var isbn: String?
+        get() = baseRecord.isbn
         set(value) {
-            field = value
-            baseRecord?.isbn = value
+            baseRecord.isbn = value
         }
 
-    var numberOfCopies: Int? = baseRecord?.numberOfCopies
+    var numberOfCopies: Int?
+        get() = baseRecord.numberOfCopies
         set(value) {
-            field = value
-            baseRecord?.numberOfCopies = value
+            baseRecord.numberOfCopies = value
         }
 
-    var authors: List<String>? = baseRecord?.authors
+    var authors: List<String>?
+        get() = baseRecord.authors
         set(value) {
-            field = value
-            baseRecord?.authors = value
+            baseRecord.authors = value
         }
 
-    var subject: String? = baseRecord?.subject
+    var subject: String?
+        get() = baseRecord.subject
         set(value) {
-            field = value
-            baseRecord?.subject = value
+            baseRecord.subject = value
         }
 
-    var magazineName: String? = baseRecord?.magazineName
+    var magazineName: String?
+        get() = baseRecord.magazineName
         set(value) {
-            field = value
-            baseRecord?.magazineName = value
+            baseRecord.magazineName = value
         }
 
-    var serviceConnection: ServiceConnection? = baseRecord?.serviceConnection
+    var serviceConnection: ServiceConnection?
+        get() = baseRecord.serviceConnection
         set(value) {
-            field = value
-            baseRecord?.serviceConnection = value?.copy()
+            baseRecord.serviceConnection = value
         }
 
+    /**
+     * Gives the wrapped [Record] (not a copy of it).
+     */
     fun toBaseRecord(): Record {
-        return Record(
-            id = id?.idValue,
-            type = type,
-            title = title,
-            language = language,
-            publisher = publisher,
-            publishedDate = publishedDate,
-            notes = notes,
-            rating = rating,
-            subtitle = subtitle,
-            isbn = isbn,
-            numberOfCopies = numberOfCopies,
-            authors = authors,
-            subject = subject,
-            magazineName = magazineName,
-            serviceConnection = serviceConnection
-        )
+        return baseRecord
     }
 
     override fun equals(other: Any?): Boolean {
@@ -154,4 +154,4 @@ class NitriteRecord @JvmOverloads constructor(@field:JsonIgnore private val base
     override fun hashCode(): Int {
         return id?.hashCode() ?: 0
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb
+
+import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.Record.Type
+import com.dansoftware.boomega.database.api.data.ServiceConnection
+import com.dansoftware.boomega.util.toLocale
+import org.dizitart.no2.Document
+import org.dizitart.no2.NitriteId
+import org.dizitart.no2.mapper.JacksonMapper
+import org.dizitart.no2.mapper.NitriteMapper
+import java.time.LocalDate
+import java.time.format.DateTimeFormatter
+
+/**
+ * A [NitriteMapper] that converts the [NitriteRecord]s to/from documents by hand,
+ * instead of the reflection based jackson conversion.
+ *
+ * The produced documents have the same structure as the ones jackson produces, so the
+ * already existing databases are compatible with it. Any other object is mapped by the [fallback] mapper.
+ */
+internal class NitriteRecordMapper(
+    private val fallback: NitriteMapper = JacksonMapper()
+) : NitriteMapper by fallback {
+
+    override fun <T> asDocument(`object`: T): Document {
+        return when (`object`) {
+            is NitriteRecord -> `object`.toDocument()
+            else -> fallback.asDocument(`object`)
+        }
+    }
+
+    override fun <T> asObject(document: Document, type: Class<T>): T {
+        return when (type) {
+            NitriteRecord::class.java -> type.cast(NitriteRecord(toRecord(document)))
+            else -> fallback.asObject(document, type)
+        }
+    }
+
+    private fun NitriteRecord.toDocument() = Document().also { document ->
+        document.putNotNull(ID, id?.let(fallback::asValue))
+        document.putNotNull(TYPE, type.name)
+        document.putNotNull(TITLE, title)
+        document.putNotNull(LANGUAGE, language?.toString())
+        document.putNotNull(PUBLISHER, publisher)
+        document.putNotNull(PUBLISHED_DATE, publishedDate?.format(DateTimeFormatter.ISO_LOCAL_DATE))
+        document.putNotNull(NOTES, notes)
+        document.putNotNull(RATING, rating)
+        document.putNotNull(SUBTITLE, subtitle)
+        document.putNotNull(ISBN, isbn)
+        document.putNotNull(NUMBER_OF_COPIES, numberOfCopies)
+        document.putNotNull(AUTHORS, authors?.let(::ArrayList))
+        document.putNotNull(SUBJECT, subject)
+        document.putNotNull(MAGAZINE_NAME, magazineName)
+        document.putNotNull(
+            SERVICE_CONNECTION,
+            serviceConnection?.takeIf { it.isNotEmpty() }?.let { LinkedHashMap<String, Any?>(it) }
+        )
+    }
+
+    private fun Document.putNotNull(key: String, value: Any?) {
+        if (value !== null) put(key, value)
+    }
+
+    companion object {
+
+        private const val ID = "id"
+        private const val TYPE = "type"
+        private const val TITLE = "title"
+        private const val LANGUAGE = "language"
+        private const val PUBLISHER = "publisher"
+        private const val PUBLISHED_DATE = "publishedDate"
+        private const val NOTES = "notes"
+        private const val RATING = "rating"
+        private const val SUBTITLE = "subtitle"
+        private const val ISBN = "isbn"
+        private const val NUMBER_OF_COPIES = "numberOfCopies"
+        private const val AUTHORS = "authors"
+        private const val SUBJECT = "subject"
+        private const val MAGAZINE_NAME = "magazineName"
+        private const val SERVICE_CONNECTION = "serviceConnection"
+
+        /**
+         * Converts the given document to a [Record].
+         *
+         * @param withDetails `false` if the details (the notes and the service connection except
+         * the google book handle) should be skipped
+         */
+        fun toRecord(document: Document, withDetails: Boolean = true): Record = with(document) {
+            Record(
+                id = (get(ID).asNitriteId() ?: id).idValue,
+                type = (get(TYPE) as String?)?.let(Type::valueOf) ?: Type.BOOK,
+                title = get(TITLE) as String?,
+                language = (get(LANGUAGE) as String?)?.toLocale(),
+                publisher = get(PUBLISHER) as String?,
+                publishedDate = (get(PUBLISHED_DATE) as String?)?.let(LocalDate::parse),
+                notes = if (withDetails) get(NOTES) as String? else null,
+                rating = (get(RATING) as Number?)?.toInt(),
+                subtitle = get(SUBTITLE) as String?,
+                isbn = get(ISBN) as String?,
+                numberOfCopies = (get(NUMBER_OF_COPIES) as Number?)?.toInt(),
+                authors = (get(AUTHORS) as List<*>?)?.map(Any?::toString),
+                subject = get(SUBJECT) as String?,
+                magazineName = get(MAGAZINE_NAME) as String?,
+                serviceConnection = if (withDetails) (get(SERVICE_CONNECTION) as Map<*, *>?)
+                    ?.let { info -> ServiceConnection(info.mapKeys { it.key.toString() }) } else null
+            ).apply {
+                // the google book handle is needed even if the details are skipped
+                if (!withDetails)
+                    googleBookHandle = (get(SERVICE_CONNECTION) as Map<*, *>?)
+                        ?.get(ServiceConnection.GOOGLE_BOOK_HANDLE)?.toString()
+            }
+        }
+
+        /**
+         * The id might be stored as a string or as a number depending on the way jackson serialized it
+         */
+        private fun Any?.asNitriteId(): NitriteId? = when (this) {
+            null -> null
+            is NitriteId -> this
+            is Number -> NitriteId.createId(toLong())
+            else -> NitriteId.createId(toString().toLong())
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb2
+
+import org.h2.mvstore.MVStore
+
+/**
+ * A [MVStoreDatabase] stored in a BMDB v2 file.
+ *
+ * @param password the key the file is encrypted with; `null` if the file is not encrypted
+ * @param isCompressed `true` if the stored data should be compressed
+ */
+class BMDB2Database @JvmOverloads constructor(
+    meta: BMDB2Meta,
+    password: String?,
+    isCompressed: Boolean = true
+) : MVStoreDatabase(
+    MVStore.Builder()
+        .fileName(meta.file.absolutePath)
+        // the database commits every write operation by itself
+        .autoCommitDisabled()
+        .apply { if (isCompressed) compress() }
+        .apply { password?.let { encryptionKey(it.toCharArray()) } }
+        .open(),
+    meta
+)
@@ -0,0 +1,116 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb2
+
+import com.dansoftware.boomega.database.api.*
+import com.dansoftware.boomega.database.bmdb2.gui.BMDB2LoginForm
+import com.dansoftware.boomega.database.bmdb2.gui.BMDB2RegistrationForm
+import com.dansoftware.boomega.gui.api.Context
+import com.dansoftware.boomega.gui.util.icon
+import com.dansoftware.boomega.i18n.api.i18n
+import javafx.beans.property.ReadOnlyObjectProperty
+import javafx.scene.Node
+import org.h2.mvstore.DataUtils
+import java.io.File
+
+/**
+ * Represents the second version of the internal Boomega database management system,
+ * that stores the records directly in an MVStore file (instead of going through nitrite).
+ *
+ * @see BMDBMigration
+ */
+object BMDB2Provider : DatabaseProvider<BMDB2Meta> {
+
+    /**
+     * Represents the password (the encryption key of the file).
+     */
+    val PASSWORD_FIELD = DatabaseField(
+        valueType = String::class.java,
+        id = "psswrd",
+        name = i18n("credentials.password")
+    )
+
+    /**
+     * Represents the "compressed" configuration
+     */
+    val COMPRESSED = DatabaseOption(
+        id = "cmprsd",
+        name = i18n("database.bmdb.option.compress"),
+        type = Boolean::class.java,
+        defaultValue = true
+    )
+
+    override val name: String
+        get() = "BMDB v2"
+
+    override val icon: Node
+        get() = icon("bmdb-icon")
+
+    override val availableOptions: List<DatabaseOption<*>> = listOf(
+        COMPRESSED
+    )
+
+    override val fields: List<DatabaseField<*>> = listOf(
+        PASSWORD_FIELD
+    )
+
+    override fun getMeta(identifier: String): BMDB2Meta {
+        return BMDB2Meta(File(identifier))
+    }
+
+    override fun getDatabase(
+        meta: BMDB2Meta,
+        credentials: Map<DatabaseField<*>, Any?>,
+        options: Map<DatabaseOption<*>, Any>
+    ): Database {
+        val password = credentials[PASSWORD_FIELD]?.toString()?.takeIf { it.isNotBlank() }
+        try {
+            return BMDB2Database(meta, password, isCompressed = COMPRESSED.getValueFrom(options))
+        } catch (e: IllegalStateException) {
+            // the MVStore reports its errors with IllegalStateExceptions carrying an error code
+            throw DatabaseConstructionException(localizedMessage = e.specificMessage(password !== null), cause = e)
+        }
+    }
+
+    override fun buildUILoginForm(
+        context: Context,
+        databaseMeta: ReadOnlyObjectProperty<BMDB2Meta>,
+        options: Map<DatabaseOption<*>, Any>
+    ): LoginForm<BMDB2Meta> {
+        return BMDB2LoginForm(context, databaseMeta, options)
+    }
+
+    override fun buildUIRegistrationForm(
+        context: Context,
+        options: Map<DatabaseOption<*>, Any>
+    ): RegistrationForm<BMDB2Meta> {
+        return BMDB2RegistrationForm(context, options)
+    }
+
+    private fun IllegalStateException.specificMessage(isEncrypted: Boolean): String {
+        return i18n(
+            when (DataUtils.getErrorCode(message)) {
+                DataUtils.ERROR_FILE_LOCKED -> "login.failed.database_opened_in_other_process"
+                // a wrong encryption key makes the file unreadable
+                DataUtils.ERROR_FILE_CORRUPT -> if (isEncrypted) "login.failed.invalid_user_password" else "login.failed.io"
+                else -> "login.failed.io"
+            }
+        )
+    }
+}
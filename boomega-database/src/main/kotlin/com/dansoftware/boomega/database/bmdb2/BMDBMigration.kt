@@ -0,0 +1,72 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb2
+
+import com.dansoftware.boomega.database.api.Database
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+/**
+ * Copies the records of an existing (BMDB) database into a new BMDB v2 file.
+ *
+ * The migration is a one-time operation: the target file should not exist yet,
+ * and the records keep their original ids. It's not offered by the UI yet.
+ */
+object BMDBMigration {
+
+    private val logger: Logger = LoggerFactory.getLogger(BMDBMigration::class.java)
+
+    /**
+     * The number of records written in one commit
+     */
+    private const val CHUNK_SIZE = 1000
+
+    /**
+     * Migrates the records of the [source] database into the file described by the [target] meta.
+     *
+     * @param password the encryption key of the new file; `null` if it shouldn't be encrypted
+     * @return the number of migrated records
+     * @throws IllegalArgumentException if the target file already exists
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun migrate(source: Database, target: BMDB2Meta, password: String? = null, isCompressed: Boolean = true): Int {
+        require(!target.file.exists()) { "The target file '${target.file}' already exists" }
+        logger.debug("Migrating '{}' to '{}'...", source.meta, target)
+        var count = 0
+        BMDB2Database(target, password, isCompressed).use { database ->
+            source.cursor().use { cursor ->
+                cursor.chunked(CHUNK_SIZE).forEach { chunk ->
+                    database.importRecords(chunk)
+                    count += chunk.size
+                }
+            }
+        }
+        logger.debug("Migrated {} records to '{}'", count, target)
+        return count
+    }
+
+    private inline fun <D : Database, R> D.use(action: (D) -> R): R {
+        try {
+            return action(this)
+        } finally {
+            close()
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb2
+
+import com.dansoftware.boomega.database.api.*
+import com.dansoftware.boomega.database.api.data.Record
+import org.h2.mvstore.MVMap
+import org.h2.mvstore.MVStore
+import java.util.Collections.unmodifiableList
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import kotlin.concurrent.read
+import kotlin.concurrent.write
+
+/**
+ * A [Database] implementation that stores the records directly in an [MVStore]
+ * (the storage layer nitrite is built on), without any object mapping.
+ *
+ * The records are stored as binary blobs (see [RecordCodec]) keyed by their ids. Some of the properties
+ * are indexed by secondary maps, that are used for narrowing down the records matching a [RecordQuery].
+ * The ids are never reused: the last assigned id is persisted in a separate map of the store.
+ *
+ * Every write operation is committed as a single version of the store, so it's atomic.
+ * The writes are exclusive, while the reads run concurrently on the snapshots of the maps.
+ *
+ * @see BMDB2Database
+ */
+open class MVStoreDatabase @JvmOverloads constructor(
+    private val store: MVStore,
+    override val meta: DatabaseMeta,
+    private val eventBus: DatabaseEventBus = DatabaseEventBus()
+) : Database {
+
+    private val lock = ReentrantReadWriteLock()
+
+    private val interner = RecordInterner()
+
+    private val recordMap: MVMap<Long, ByteArray> = store.openMap(RECORDS_MAP)
+
+    private val metaMap: MVMap<String, Long> = store.openMap(META_MAP)
+
+    private val indexes: List<SecondaryIndex> = INDEXED_PROPERTIES.map { (propertyId, getValues) ->
+        SecondaryIndex(propertyId, store.openMap("$INDEX_MAP_PREFIX$propertyId"), getValues)
+    }
+
+    override val records: List<Record>
+        get() = recordMap.entries.map { (id, bytes) -> decode(id, bytes) }
+
+    /**
+     * The notes & the service connections are skipped while decoding the records.
+     */
+    override val recordSummaries: List<Record>
+        get() = recordMap.entries.map { (id, bytes) ->
+            decode(id, bytes, withDetails = false).apply { deferDetailsTo(this@MVStoreDatabase) }
+        }
+
+    override val totalRecordCount: Int
+        get() = recordMap.size
+
+    override val isClosed: Boolean
+        get() = store.isClosed
+
+    /**
+     * If the query has an equality predicate on an indexed property, only the records found in the index
+     * are evaluated; otherwise all the records are scanned.
+     */
+    override fun find(query: RecordQuery): List<Record> {
+        if (query.limit == 0)
+            return emptyList()
+        val candidates = query.predicates
+            .filterIsInstance<RecordPredicate.Equals>()
+            .firstNotNullOfOrNull { predicate ->
+                indexes.find { it.propertyId == predicate.property.id }?.find(predicate.value)
+            }
+        return when (candidates) {
+            null -> cursor().use(query::execute)
+            else -> query.execute(findByIds(candidates).asSequence())
+        }
+    }
+
+    override fun findById(id: Long): Record? {
+        return recordMap[id]?.let { decode(id, it) }
+    }
+
+    override fun findByIds(ids: Collection<Long>): List<Record> {
+        return ids.mapNotNull(::findById)
+    }
+
+    override fun findByIsbn(isbn: String): List<Record> {
+        return findByIds(indexes.first { it.propertyId == ISBN }.find(isbn))
+    }
+
+    /**
+     * The cursor iterates over the snapshot of the records taken when the cursor is opened.
+     */
+    override fun cursor(): RecordCursor {
+        return RecordCursor(
+            recordMap.entries
+                .asSequence()
+                .map { (id, bytes) -> decode(id, bytes) }
+                .iterator()
+        )
+    }
+
+    override fun insertRecord(record: Record) {
+        insertRecords(listOf(record))
+    }
+
+    override fun insertRecords(records: List<Record>) {
+        if (records.isEmpty()) return
+        records.loadDetails()
+        atomicWrite {
+            var lastId = lastId()
+            records.forEach { record ->
+                record.id = ++lastId
+                put(record)
+            }
+            metaMap[LAST_ID] = lastId
+        }
+        notifyListeners(DatabaseChangeType.INSERT, unmodifiableList(records))
+    }
+
+    /**
+     * Stores the given records with their original ids (overwriting the records having the same ids).
+     * Used for migrating the records from another database.
+     */
+    internal fun importRecords(records: List<Record>) {
+        if (records.isEmpty()) return
+        atomicWrite {
+            records.forEach { record ->
+                requireNotNull(record.id) { "The imported records must have an id" }
+                put(record)
+            }
+            metaMap[LAST_ID] = maxOf(lastId(), records.maxOf { it.id!! })
+        }
+    }
+
+    override fun updateRecord(record: Record) {
+        updateRecords(listOf(record))
+    }
+
+    override fun updateRecords(records: List<Record>) {
+        if (records.isEmpty()) return
+        records.loadDetails()
+        atomicWrite { records.filter { it.id !== null }.forEach(::put) }
+        notifyListeners(DatabaseChangeType.UPDATE, unmodifiableList(records))
+    }
+
+    override fun removeRecord(record: Record) {
+        removeRecords(listOf(record))
+    }
+
+    override fun removeRecords(records: List<Record>) {
+        val ids = records.mapNotNull(Record::id)
+        if (ids.isNotEmpty())
+            atomicWrite { ids.forEach(::remove) }
+        notifyListeners(DatabaseChangeType.DELETE, unmodifiableList(records))
+    }
+
+    override fun close() {
+        lock.write { store.close() }
+        eventBus.close()
+    }
+
+    override fun addListener(listener: DatabaseChangeListener) {
+        eventBus.addListener(listener)
+    }
+
+    override fun removeListener(listener: DatabaseChangeListener) {
+        eventBus.removeListener(listener)
+    }
+
+    /**
+     * Decodes the record handed out by the database (with its repeated values canonicalized)
+     */
+    private fun decode(id: Long, bytes: ByteArray, withDetails: Boolean = true): Record {
+        return interner.intern(RecordCodec.decode(id, bytes, withDetails))
+    }
+
+    private fun notifyListeners(eventType: DatabaseChangeType, items: List<Record>) {
+        eventBus.publish(eventType, items)
+    }
+
+    /**
+     * Performs the given modifications and commits them as a single version of the store.
+     * If the modifications fail, the uncommitted changes are rolled back.
+     */
+    private inline fun atomicWrite(action: () -> Unit) {
+        lock.write {
+            try {
+                action()
+                store.commit()
+            } catch (e: RuntimeException) {
+                store.rollback()
+                throw e
+            }
+        }
+    }
+
+    /**
+     * The last assigned id; the files created before the id was persisted fall back to the greatest stored id.
+     */
+    private fun lastId(): Long {
+        return metaMap[LAST_ID] ?: recordMap.lastKey() ?: 0L
+    }
+
+    private fun put(record: Record) {
+        val id = record.id!!
+        val previous = recordMap.put(id, RecordCodec.encode(record))?.let { RecordCodec.decode(id, it) }
+        indexes.forEach { index ->
+            previous?.let { index.remove(it) }
+            index.add(record)
+        }
+    }
+
+    private fun remove(id: Long) {
+        val previous = recordMap.remove(id)?.let { RecordCodec.decode(id, it) } ?: return
+        indexes.forEach { it.remove(previous) }
+    }
+
+    /**
+     * An index that maps the values of a property to the ids of the records having that value.
+     *
+     * The keys of the underlying map are the values concatenated with the ids, so a value can belong to multiple
+     * records; the records having a particular value are found by a range scan.
+     */
+    private class SecondaryIndex(
+        val propertyId: String,
+        private val map: MVMap<String, Long>,
+        private val getValues: (Record) -> Collection<String>
+    ) {
+
+        fun add(record: Record) {
+            getValues(record).forEach { map[key(it, record.id!!)] = record.id!! }
+        }
+
+        fun remove(record: Record) {
+            getValues(record).forEach { map.remove(key(it, record.id!!)) }
+        }
+
+        /**
+         * Gives the ids of the records having the given value; `null` if the value is not indexable
+         * (so the index can't be used)
+         */
+        fun find(value: Any?): List<Long>? {
+            if (value !is String) return null
+            val prefix = value + SEPARATOR
+            val cursor = map.cursor(prefix)
+            val ids = ArrayList<Long>()
+            while (cursor.hasNext() && cursor.next().startsWith(prefix))
+                ids.add(cursor.value)
+            return ids
+        }
+
+        private fun key(value: String, id: Long) = "$value$SEPARATOR${"%016x".format(id)}"
+
+        private companion object {
+            const val SEPARATOR = '\u0000'
+        }
+    }
+
+    companion object {
+        private const val RECORDS_MAP = "records"
+        private const val META_MAP = "meta"
+        private const val LAST_ID = "lastId"
+        private const val INDEX_MAP_PREFIX = "index."
+        private const val ISBN = "isbn"
+
+        /**
+         * The indexed properties (by their ids) and the functions giving the indexed values of a record
+         */
+        private val INDEXED_PROPERTIES: Map<String, (Record) -> Collection<String>> = mapOf(
+            ISBN to { record -> listOfNotNull(record.isbn) },
+            "publisher" to { record -> listOfNotNull(record.publisher) },
+            "authors" to { record -> record.authors.orEmpty().toSet() }
+        )
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb2
+
+import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.ServiceConnection
+import com.dansoftware.boomega.util.toLocale
+import java.time.LocalDate
+import java.util.*
+
+/**
+ * Encodes [Record]s into compact binary blobs (and decodes them back).
+ *
+ * Layout of a blob:
+ * ```
+ * [format version: byte] [presence bits: varint] [type ordinal: varint] [present fields in declaration order...]
+ * ```
+ * - the numbers are stored as (zig-zag encoded) varints
+ * - the strings are stored as a varint byte-length followed by the UTF-8 bytes
+ * - the lists and maps are stored as a varint size followed by their elements
+ *
+ * The id of the record is not part of the blob; it's stored as the key of the entry.
+ */
+internal object RecordCodec {
+
+    /**
+     * The version of the format the records are encoded in. Since version 2 the languages are stored
+     * in the format of [Locale.toString] (like by the other databases) instead of language tags.
+     */
+    private const val FORMAT_VERSION: Byte = 2
+
+    private const val LANGUAGE_TAG_FORMAT_VERSION: Byte = 1
+
+    private const val TITLE = 1 shl 0
+    private const val LANGUAGE = 1 shl 1
+    private const val PUBLISHER = 1 shl 2
+    private const val PUBLISHED_DATE = 1 shl 3
+    private const val NOTES = 1 shl 4
+    private const val RATING = 1 shl 5
+    private const val SUBTITLE = 1 shl 6
+    private const val ISBN = 1 shl 7
+    private const val NUMBER_OF_COPIES = 1 shl 8
+    private const val AUTHORS = 1 shl 9
+    private const val SUBJECT = 1 shl 10
+    private const val MAGAZINE_NAME = 1 shl 11
+    private const val SERVICE_CONNECTION = 1 shl 12
+
+    // the type tags of the service connection values
+    private const val NULL_VALUE: Byte = 0
+    private const val STRING_VALUE: Byte = 1
+    private const val LONG_VALUE: Byte = 2
+    private const val BOOLEAN_VALUE: Byte = 3
+    private const val DOUBLE_VALUE: Byte = 4
+
+    fun encode(record: Record): ByteArray {
+        // the snapshot of the connection also contains the google book handle
+        val serviceConnection = record.serviceConnection?.takeIf { it.isNotEmpty() }
+
+        var presence = 0
+        if (record.title !== null) presence = presence or TITLE
+        if (record.language !== null) presence = presence or LANGUAGE
+        if (record.publisher !== null) presence = presence or PUBLISHER
+        if (record.publishedDate !== null) presence = presence or PUBLISHED_DATE
+        if (record.notes !== null) presence = presence or NOTES
+        if (record.rating !== null) presence = presence or RATING
+        if (record.subtitle !== null) presence = presence or SUBTITLE
+        if (record.isbn !== null) presence = presence or ISBN
+        if (record.numberOfCopies !== null) presence = presence or NUMBER_OF_COPIES
+        if (record.authors !== null) presence = presence or AUTHORS
+        if (record.subject !== null) presence = presence or SUBJECT
+        if (record.magazineName !== null) presence = presence or MAGAZINE_NAME
+        if (serviceConnection !== null) presence = presence or SERVICE_CONNECTION
+
+        return ByteWriter().run {
+            writeByte(FORMAT_VERSION)
+            writeVarInt(presence)
+            writeVarInt(record.type.ordinal)
+            record.title?.let(::writeString)
+            record.language?.let { writeString(it.toString()) }
+            record.publisher?.let(::writeString)
+            record.publishedDate?.let { writeVarLong(zigZag(it.toEpochDay())) }
+            record.notes?.let(::writeString)
+            record.rating?.let { writeVarLong(zigZag(it.toLong())) }
+            record.subtitle?.let(::writeString)
+            record.isbn?.let(::writeString)
+            record.numberOfCopies?.let { writeVarLong(zigZag(it.toLong())) }
+            record.authors?.let { authors ->
+                writeVarInt(authors.size)
+                authors.forEach(::writeString)
+            }
+            record.subject?.let(::writeString)
+            record.magazineName?.let(::writeString)
+            serviceConnection?.let { connection ->
+                writeVarInt(connection.size)
+                connection.forEach { (key, value) ->
+                    writeString(key)
+                    writeValue(value)
+                }
+            }
+            toByteArray()
+        }
+    }
+
+    /**
+     * Decodes the record from the given blob.
+     *
+     * @param withDetails `false` if the details (the notes and the service connection except
+     * the google book handle) should be skipped
+     */
+    fun decode(id: Long, bytes: ByteArray, withDetails: Boolean = true): Record {
+        val reader = ByteReader(bytes)
+        val version = reader.readByte()
+        check(version == FORMAT_VERSION || version == LANGUAGE_TAG_FORMAT_VERSION) {
+            "Unknown record format version: $version"
+        }
+
+        val presence = reader.readVarInt()
+        fun has(field: Int) = presence and field != 0
+
+        return with(reader) {
+            Record(
+                id = id,
+                type = Record.Type.values()[readVarInt()],
+                title = if (has(TITLE)) readString() else null,
+                language = when {
+                    !has(LANGUAGE) -> null
+                    version == LANGUAGE_TAG_FORMAT_VERSION -> Locale.forLanguageTag(readString())
+                    else -> readString().toLocale()
+                },
+                publisher = if (has(PUBLISHER)) readString() else null,
+                publishedDate = if (has(PUBLISHED_DATE)) LocalDate.ofEpochDay(unZigZag(readVarLong())) else null,
+                notes = when {
+                    !has(NOTES) -> null
+                    withDetails -> readString()
+                    else -> null.also { skipString() }
+                },
+                rating = if (has(RATING)) unZigZag(readVarLong()).toInt() else null,
+                subtitle = if (has(SUBTITLE)) readString() else null,
+                isbn = if (has(ISBN)) readString() else null,
+                numberOfCopies = if (has(NUMBER_OF_COPIES)) unZigZag(readVarLong()).toInt() else null,
+                authors = if (has(AUTHORS)) List(readVarInt()) { readString() } else null,
+                subject = if (has(SUBJECT)) readString() else null,
+                magazineName = if (has(MAGAZINE_NAME)) readString() else null,
+                serviceConnection = if (withDetails && has(SERVICE_CONNECTION)) readServiceConnection() else null
+            ).apply {
+                // the google book handle is needed even if the details are skipped
+                if (!withDetails && has(SERVICE_CONNECTION))
+                    googleBookHandle = readServiceConnection()[ServiceConnection.GOOGLE_BOOK_HANDLE]?.toString()
+            }
+        }
+    }
+
+    private fun ByteWriter.writeValue(value: Any?) {
+        when (value) {
+            null -> writeByte(NULL_VALUE)
+            is Boolean -> {
+                writeByte(BOOLEAN_VALUE)
+                writeByte(if (value) 1 else 0)
+            }
+            is Byte, is Short, is Int, is Long -> {
+                writeByte(LONG_VALUE)
+                writeVarLong(zigZag((value as Number).toLong()))
+            }
+            is Float, is Double -> {
+                writeByte(DOUBLE_VALUE)
+                writeVarLong(java.lang.Double.doubleToRawLongBits((value as Number).toDouble()))
+            }
+            else -> {
+                writeByte(STRING_VALUE)
+                writeString(value.toString())
+            }
+        }
+    }
+
+    private fun ByteReader.readServiceConnection(): ServiceConnection {
+        val size = readVarInt()
+        val values = HashMap<String, Any?>(size * 2)
+        repeat(size) {
+            values[readString()] = when (val tag = readByte()) {
+                NULL_VALUE -> null
+                STRING_VALUE -> readString()
+                LONG_VALUE -> unZigZag(readVarLong())
+                BOOLEAN_VALUE -> readByte() != 0.toByte()
+                DOUBLE_VALUE -> java.lang.Double.longBitsToDouble(readVarLong())
+                else -> throw IllegalStateException("Unknown value tag: $tag")
+            }
+        }
+        return ServiceConnection(values)
+    }
+
+    private fun zigZag(value: Long): Long = (value shl 1) xor (value shr 63)
+
+    private fun unZigZag(value: Long): Long = (value ushr 1) xor -(value and 1)
+
+    /**
+     * A growable byte buffer supporting the primitives of the format
+     */
+    private class ByteWriter {
+        private var buffer = ByteArray(128)
+        private var position = 0
+
+        fun writeByte(value: Byte) {
+            ensureCapacity(1)
+            buffer[position++] = value
+        }
+
+        fun writeVarInt(value: Int) = writeVarLong(value.toLong() and 0xFFFFFFFFL)
+
+        fun writeVarLong(value: Long) {
+            ensureCapacity(10)
+            var remaining = value
+            while (remaining and 0x7FL.inv() != 0L) {
+                buffer[position++] = ((remaining and 0x7F) or 0x80).toByte()
+                remaining = remaining ushr 7
+            }
+            buffer[position++] = remaining.toByte()
+        }
+
+        fun writeString(value: String) {
+            val bytes = value.toByteArray(Charsets.UTF_8)
+            writeVarInt(bytes.size)
+            ensureCapacity(bytes.size)
+            System.arraycopy(bytes, 0, buffer, position, bytes.size)
+            position += bytes.size
+        }
+
+        fun toByteArray(): ByteArray = buffer.copyOf(position)
+
+        private fun ensureCapacity(additional: Int) {
+            if (position + additional > buffer.size)
+                buffer = buffer.copyOf(maxOf(buffer.size * 2, position + additional))
+        }
+    }
+
+    private class ByteReader(private val buffer: ByteArray) {
+        private var position = 0
+
+        fun readByte(): Byte = buffer[position++]
+
+        fun readVarInt(): Int = readVarLong().toInt()
+
+        fun readVarLong(): Long {
+            var result = 0L
+            var shift = 0
+            while (true) {
+                val byte = buffer[position++].toLong()
+                result = result or ((byte and 0x7F) shl shift)
+                if (byte and 0x80 == 0L) return result
+                shift += 7
+            }
+        }
+
+        fun readString(): String {
+            val length = readVarInt()
+            return String(buffer, position, length, Charsets.UTF_8).also { position += length }
+        }
+
+        fun skipString() {
+            position += readVarInt()
+        }
+    }
+}
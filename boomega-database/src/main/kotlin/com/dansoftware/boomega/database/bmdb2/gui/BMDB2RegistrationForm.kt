@@ -0,0 +1,46 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.bmdb2.gui
+
+import com.dansoftware.boomega.database.api.DatabaseField
+import com.dansoftware.boomega.database.api.DatabaseOption
+import com.dansoftware.boomega.database.api.FileRegistrationForm
+import com.dansoftware.boomega.database.bmdb2.BMDB2Meta
+import com.dansoftware.boomega.database.bmdb2.BMDB2Provider
+import com.dansoftware.boomega.gui.api.Context
+import java.io.File
+
+class BMDB2RegistrationForm(
+    context: Context,
+    options: Map<DatabaseOption<*>, Any>
+) : FileRegistrationForm<BMDB2Meta>(
+    context,
+    options,
+    fileExtension = ".${BMDB2Meta.FILE_EXTENSION}",
+    protection = Protection.ENCRYPTION
+) {
+
+    override fun createMeta(name: String, file: File) = BMDB2Meta(name, file)
+
+    override fun createCredentials(username: String?, password: String) =
+        mapOf<DatabaseField<*>, Any>(BMDB2Provider.PASSWORD_FIELD to password)
+
+    override fun createDatabase(meta: BMDB2Meta, credentials: Map<DatabaseField<*>, Any>) {
+        BMDB2Provider.getDatabase(meta, credentials, options).close()
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.sql
+
+import com.dansoftware.boomega.database.api.ConnectionPoolStatistics
+import com.zaxxer.hikari.HikariDataSource
+import org.hibernate.hikaricp.internal.HikariCPConnectionProvider
+import java.sql.Connection
+import java.time.Duration
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * A HikariCP based connection provider that also measures the time spent on waiting for the connections.
+ *
+ * The pool is configured through the `hibernate.hikari.*` options. It is filled up to its minimum size
+ * right after it's created, and the connections are validated by the pool before they are handed out.
+ */
+class PooledConnectionProvider : HikariCPConnectionProvider() {
+
+    private val acquiredConnections = LongAdder()
+    private val waitTimeNanos = LongAdder()
+
+    override fun getConnection(): Connection {
+        val start = System.nanoTime()
+        try {
+            return super.getConnection()
+        } finally {
+            waitTimeNanos.add(System.nanoTime() - start)
+            acquiredConnections.increment()
+        }
+    }
+
+    /**
+     * Takes a snapshot of the state of the pool
+     */
+    fun statistics(): ConnectionPoolStatistics {
+        val pool = unwrap(HikariDataSource::class.java).hikariPoolMXBean
+        val acquired = acquiredConnections.sum()
+        return ConnectionPoolStatistics(
+            activeConnections = pool.activeConnections,
+            idleConnections = pool.idleConnections,
+            totalConnections = pool.totalConnections,
+            waitingThreads = pool.threadsAwaitingConnection,
+            averageWaitTime = Duration.ofNanos(if (acquired == 0L) 0 else waitTimeNanos.sum() / acquired)
+        )
+    }
+}
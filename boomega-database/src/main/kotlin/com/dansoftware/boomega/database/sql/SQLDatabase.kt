@@ -20,27 +20,66 @@ package com.dansoftware.boomega.database.sql
 
 import com.dansoftware.boomega.database.api.*
 import com.dansoftware.boomega.database.api.data.Record
+import org.hibernate.ScrollMode
+import org.hibernate.ScrollableResults
 import org.hibernate.Session
+import org.hibernate.SharedSessionContract
+import org.hibernate.StatelessSession
 import org.hibernate.boot.Metadata
 import org.hibernate.boot.MetadataSources
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider
+import org.hibernate.mapping.Column
 import org.hibernate.service.ServiceRegistry
-import javax.persistence.criteria.CriteriaQuery
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * A [Database] implementation that connects to a database using Hibernate.
  *
+ * If the JDBC batch size (`hibernate.jdbc.batch_size`) is greater than one, the database works in batching mode:
+ * the inserts and updates are ordered by Hibernate, so they can be grouped into JDBC batches.
+ *
+ * Unless another connection provider is specified, the connections are pooled by a [PooledConnectionProvider].
+ *
  * @param hibernateOptions the options provided for Hibernate
+ * @param deleteChunkSize the maximum number of ids bound to a single bulk `DELETE` statement
+ * @param useCache `true` if the records and the results of the queries should be cached in memory
+ * (in the Hibernate second-level and query cache)
+ * @param eventBus the event bus delivering the change events to the listeners
  */
-class SQLDatabase(
+class SQLDatabase @JvmOverloads constructor(
     override val meta: DatabaseMeta,
-    hibernateOptions: Map<String, String?>
+    hibernateOptions: Map<String, String?>,
+    private val deleteChunkSize: Int = DEFAULT_DELETE_CHUNK_SIZE,
+    private val useCache: Boolean = false,
+    private val eventBus: DatabaseEventBus = DatabaseEventBus()
 ) : Database {
 
-    private val listeners: MutableSet<DatabaseChangeListener> = HashSet()
+    private val batchSize: Int =
+        hibernateOptions[BATCH_SIZE_OPTION]?.toIntOrNull()?.coerceAtLeast(1) ?: DEFAULT_BATCH_SIZE
+
+    private val isBatching: Boolean
+        get() = batchSize > 1
 
     private val serviceRegistry: ServiceRegistry = StandardServiceRegistryBuilder()
         .applySettings(hibernateOptions)
+        .applySetting(BATCH_SIZE_OPTION, batchSize.toString())
+        .apply {
+            // the same null-ordering as the in-memory evaluation of the queries
+            if (NULL_ORDERING_OPTION !in hibernateOptions)
+                applySetting(NULL_ORDERING_OPTION, "last")
+            if (CONNECTION_PROVIDER_OPTION !in hibernateOptions)
+                applySetting(CONNECTION_PROVIDER_OPTION, PooledConnectionProvider::class.java.name)
+            if (isBatching)
+                BATCHING_OPTIONS.filterKeys { it !in hibernateOptions }.forEach { (key, value) -> applySetting(key, value) }
+            if (useCache) {
+                CACHE_OPTIONS.forEach { (key, value) -> applySetting(key, value) }
+                // the regions are shared by all the databases opened in the application
+                applySetting(CACHE_REGION_PREFIX_OPTION, "boomega:${meta.identifier}")
+            }
+        }
         .build()
 
     private val metadata: Metadata = MetadataSources(serviceRegistry)
@@ -49,67 +88,388 @@ class SQLDatabase(
 
     private val sessionFactory = metadata.buildSessionFactory()
 
+    private val connectionProvider: ConnectionProvider
+        get() = serviceRegistry.getService(ConnectionProvider::class.java)
+
+    /**
+     * The table storing the [SQLRecord.authors] collection and its column referencing the record.
+     * Bulk HQL deletes don't cascade to element collections, so it has to be cleared manually.
+     */
+    private val authorsTable: Pair<String, String> by lazy {
+        metadata.getCollectionBinding("${SQLRecord::class.java.name}.authors").let {
+            it.collectionTable.name to (it.key.columnIterator.next() as Column).name
+        }
+    }
+
+    /**
+     * The cached number of records, kept up-to-date by the write operations of this database.
+     * A negative value means that the records have to be counted.
+     *
+     * Other clients of the same database server might change the records as well, so the cached value
+     * expires after [RECORD_COUNT_EXPIRY] milliseconds, and it's replaced whenever the records are loaded.
+     */
+    private val recordCount = AtomicInteger(-1)
+
+    /**
+     * The time (see [System.nanoTime]) the [recordCount] was determined at
+     */
+    @Volatile
+    private var recordCountTime = 0L
+
+    private val interner = RecordInterner()
+
+    /**
+     * Gives the current state of the connection pool; `null` if the connections are not pooled
+     * by a [PooledConnectionProvider]
+     */
+    val connectionPoolStatistics: ConnectionPoolStatistics?
+        get() = (connectionProvider as? PooledConnectionProvider)?.statistics()
+
+    init {
+        synchronizeIdGenerator()
+        openedDatabases[meta] = this
+    }
+
     override val records: List<Record>
         get() {
-            return transaction { session ->
-                val cq: CriteriaQuery<SQLRecord> = session.criteriaBuilder
-                    .createQuery(SQLRecord::class.java)
-                val query: CriteriaQuery<SQLRecord> = cq.select(cq.from(SQLRecord::class.java))
-                session.createQuery(query).resultList.map { it.toBaseRecord() }
+            val records = when {
+                // the stateless sessions bypass the cache;
+                // the query itself is not cached, the whole catalog might not fit in the cache regions
+                useCache -> transaction { session ->
+                    session.createQuery(session.createCriteriaQuery(RecordQuery.ALL))
+                        .resultList
+                        .let { session.toBaseRecords(it, isComplete = true) }
+                }
+                else -> statelessRead { session ->
+                    val authors = session.fetchAuthors(null)
+                    val results = session.scrollRecords()
+                    try {
+                        results.asSequence()
+                            .map { SQLRecord.rowToRecord(it, authors[SQLRecord.rowId(it)] ?: emptyList()) }
+                            .map(interner::intern)
+                            .toList()
+                    } finally {
+                        results.close()
+                    }
+                }
             }
+            return records.also { cacheRecordCount(it.size) }
         }
 
+    /**
+     * The records are read as rows without their notes (through a stateless session, bypassing the cache).
+     */
+    override val recordSummaries: List<Record>
+        get() = statelessRead { session ->
+            val authors = session.fetchAuthors(null)
+            val results = session.scrollRecords(SQLRecord.SELECT_SUMMARY_ROWS)
+            try {
+                results.asSequence()
+                    .map { row ->
+                        val id = SQLRecord.rowId(row)
+                        interner.intern(SQLRecord.rowToRecord(row, authors[id] ?: emptyList()))
+                            .apply { deferDetailsTo(this@SQLDatabase) }
+                    }
+                    .toList()
+            } finally {
+                results.close()
+            }
+        }.also { cacheRecordCount(it.size) }
+
     override val totalRecordCount: Int
-        get() = transaction { session ->
-            session.createQuery("SELECT COUNT(*) FROM BoomegaRecords;").singleResult as Int
-        }
+        get() = recordCount.get().takeIf { it >= 0 && !isRecordCountExpired } ?: refreshRecordCount()
+
+    private val isRecordCountExpired: Boolean
+        get() = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recordCountTime) >= RECORD_COUNT_EXPIRY
 
     override val isClosed: Boolean
         get() = sessionFactory.isClosed
 
+    override fun find(query: RecordQuery): List<Record> {
+        if (query.limit == 0)
+            return emptyList()
+        return transaction { session ->
+            session.createQuery(session.createCriteriaQuery(query))
+                .setCacheable(!query.isUnrestricted)
+                .setFirstResult(query.offset)
+                .apply { query.limit?.let { setMaxResults(it) } }
+                .resultList
+                .let { session.toBaseRecords(it, isComplete = query.isUnrestricted) }
+        }
+    }
+
+    override fun findById(id: Long): Record? {
+        return transaction { session ->
+            session.get(SQLRecord::class.java, id)?.let { session.toBaseRecords(listOf(it)).first() }
+        }
+    }
+
+    override fun findByIds(ids: Collection<Long>): List<Record> {
+        if (ids.isEmpty()) return emptyList()
+        return transaction { session ->
+            session.byMultipleIds(SQLRecord::class.java)
+                .withBatchSize(batchSize)
+                .multiLoad(ids.toList())
+                .filterNotNull()
+                .let { session.toBaseRecords(it) }
+        }
+    }
+
+    override fun cursor(): RecordCursor {
+        // a stateless session doesn't keep the loaded entities in a persistence context
+        val session = sessionFactory.openStatelessSession()
+        try {
+            val results = session.scrollRecords()
+
+            // the rows are converted in chunks, so the authors of a whole chunk are fetched at once
+            val iterator = results.asSequence()
+                .chunked(SCROLL_FETCH_SIZE)
+                .flatMap { session.rowsToRecords(it) }
+                .iterator()
+
+            return RecordCursor(iterator) {
+                results.close()
+                session.close()
+            }
+        } catch (e: RuntimeException) {
+            session.close()
+            throw e
+        }
+    }
+
     override fun insertRecord(record: Record) {
+        // the details are loaded before the transaction is opened, loading them lazily would take another connection
+        listOf(record).loadDetails()
         val sqlRecord = SQLRecord(record)
         transaction { it.save(sqlRecord) }
         record.id = sqlRecord.id
+        adjustRecordCount(1)
         notifyListeners(DatabaseChangeType.INSERT, listOf(record))
     }
 
+    override fun insertRecords(records: List<Record>) {
+        if (records.isEmpty()) return
+        records.loadDetails()
+        transaction { session ->
+            records.forEachIndexed { i, record ->
+                val sqlRecord = SQLRecord(record)
+                session.save(sqlRecord)
+                record.id = sqlRecord.id
+                if ((i + 1) % batchSize == 0) {
+                    // flushing the current batch, so the persistence context doesn't grow unbounded
+                    session.flush()
+                    session.clear()
+                }
+            }
+        }
+        adjustRecordCount(records.size)
+        notifyListeners(DatabaseChangeType.INSERT, records.toList())
+    }
+
     override fun updateRecord(record: Record) {
+        listOf(record).loadDetails()
         transaction {
             it.update(SQLRecord(record))
         }
         notifyListeners(DatabaseChangeType.UPDATE, listOf(record))
     }
 
-    override fun removeRecord(record: Record) {
-        transaction {
-            it.remove(SQLRecord(record))
+    override fun updateRecords(records: List<Record>) {
+        if (records.isEmpty()) return
+        records.loadDetails()
+        transaction { session ->
+            records.forEachIndexed { i, record ->
+                session.update(SQLRecord(record))
+                if ((i + 1) % batchSize == 0) {
+                    session.flush()
+                    session.clear()
+                }
+            }
         }
-        notifyListeners(DatabaseChangeType.DELETE, listOf(record))
+        notifyListeners(DatabaseChangeType.UPDATE, records.toList())
+    }
+
+    override fun removeRecord(record: Record) {
+        removeRecords(listOf(record))
     }
 
     override fun removeRecords(records: List<Record>) {
-        transaction {
-            records.forEach(::removeRecord)
+        val ids = records.mapNotNull(Record::id)
+        if (ids.isNotEmpty()) {
+            val (table, keyColumn) = authorsTable
+            val removedCount = transaction { session ->
+                ids.chunked(deleteChunkSize).sumOf { chunk ->
+                    session.createNativeQuery("DELETE FROM $table WHERE $keyColumn IN (:ids)")
+                        // otherwise Hibernate would invalidate every cache region
+                        .addSynchronizedEntityClass(SQLRecord::class.java)
+                        .setParameterList("ids", chunk)
+                        .executeUpdate()
+                    session.createQuery("DELETE FROM SQLRecord WHERE id IN (:ids)")
+                        .setParameterList("ids", chunk)
+                        .executeUpdate()
+                }
+            }
+            adjustRecordCount(-removedCount)
         }
         notifyListeners(DatabaseChangeType.DELETE, records.toList())
     }
 
     override fun close() {
-        sessionFactory.close()
-        serviceRegistry.close()
+        try {
+            sessionFactory.close()
+            serviceRegistry.close()
+            eventBus.close()
+        } finally {
+            openedDatabases.remove(meta, this)
+        }
     }
 
     override fun addListener(listener: DatabaseChangeListener) {
-        listeners.add(listener)
+        eventBus.addListener(listener)
     }
 
     override fun removeListener(listener: DatabaseChangeListener) {
-        listeners.remove(listener)
+        eventBus.removeListener(listener)
     }
 
     private fun notifyListeners(eventType: DatabaseChangeType, items: List<Record>) {
-        listeners.forEach { it.onChange(DatabaseChangeEvent(eventType, items)) }
+        eventBus.publish(eventType, items)
+    }
+
+    /**
+     * Converts the given entities to [Record]s. Instead of initializing the authors collections one-by-one,
+     * the authors of the records are fetched by a separate query keyed by the record ids.
+     *
+     * @param isComplete `true` if the entities are all the records stored, so the authors
+     * don't have to be filtered by the ids
+     */
+    private fun SharedSessionContract.toBaseRecords(sqlRecords: List<SQLRecord>, isComplete: Boolean = false): List<Record> {
+        val authors = fetchAuthorsOf(sqlRecords.mapNotNull(SQLRecord::id), isComplete)
+        return sqlRecords.map { interner.intern(it.toBaseRecord(authors = authors[it.id] ?: emptyList())) }
+    }
+
+    /**
+     * Converts the rows selected by [SQLRecord.SELECT_ROWS] directly to [Record]s
+     * (the authors are fetched the same way as by [toBaseRecords]).
+     */
+    private fun SharedSessionContract.rowsToRecords(rows: List<Array<*>>): List<Record> {
+        val authors = fetchAuthorsOf(rows.map { SQLRecord.rowId(it) }, isComplete = false)
+        return rows.map { interner.intern(SQLRecord.rowToRecord(it, authors[SQLRecord.rowId(it)] ?: emptyList())) }
+    }
+
+    private fun SharedSessionContract.fetchAuthorsOf(ids: List<Long>, isComplete: Boolean): Map<Long, List<String>> {
+        return when {
+            ids.isEmpty() -> emptyMap()
+            isComplete -> fetchAuthors(null)
+            else -> HashMap<Long, List<String>>().apply {
+                ids.chunked(AUTHORS_QUERY_CHUNK_SIZE).forEach { putAll(fetchAuthors(it)) }
+            }
+        }
+    }
+
+    /**
+     * Gives the authors of the records with the given ids (or of all the records if [ids] is `null`)
+     * grouped by the record ids.
+     */
+    private fun SharedSessionContract.fetchAuthors(ids: List<Long>?): Map<Long, List<String>> {
+        val query =
+            if (ids === null) createQuery("SELECT r.id, a FROM SQLRecord r JOIN r.authors a", Array<Any>::class.java)
+            else createQuery("SELECT r.id, a FROM SQLRecord r JOIN r.authors a WHERE r.id IN (:ids)", Array<Any>::class.java)
+                .setParameterList("ids", ids)
+        return query.setCacheable(this is Session && ids !== null)
+            .resultList
+            .groupBy({ it[0] as Long }, { it[1] as String })
+    }
+
+    /**
+     * Counts the records with a `COUNT` query and caches the result.
+     *
+     * The query itself is not cached, because the query cache wouldn't notice the changes of other clients.
+     */
+    fun refreshRecordCount(): Int {
+        return transaction { session ->
+            session.createQuery("SELECT COUNT(r) FROM SQLRecord r", Long::class.javaObjectType)
+                .singleResult
+                .toInt()
+        }.also(::cacheRecordCount)
+    }
+
+    private fun cacheRecordCount(count: Int) {
+        recordCount.set(count)
+        recordCountTime = System.nanoTime()
+    }
+
+    /**
+     * Moves the id generator of the records past the greatest id stored in the database.
+     *
+     * The records used to get their ids from an identity column, so in an older database the
+     * generator table might be missing or behind the existing records.
+     */
+    private fun synchronizeIdGenerator() {
+        transaction<Unit> { session ->
+            val maxId = session.createQuery("SELECT MAX(r.id) FROM SQLRecord r", Long::class.javaObjectType)
+                .singleResult ?: return@transaction
+
+            val table = SQLRecord.ID_TABLE
+            val keyColumn = SQLRecord.ID_TABLE_KEY_COLUMN
+            val valueColumn = SQLRecord.ID_TABLE_VALUE_COLUMN
+
+            // the pooled optimizer hands out the ids of the block *below* the stored value
+            val safeValue = maxId + SQLRecord.ID_ALLOCATION_SIZE + 1
+
+            val storedValue = session.createNativeQuery("SELECT $valueColumn FROM $table WHERE $keyColumn = :key")
+                .setParameter("key", SQLRecord.ID_TABLE_KEY)
+                .uniqueResult() as Number?
+
+            when {
+                storedValue == null ->
+                    session.createNativeQuery("INSERT INTO $table ($keyColumn, $valueColumn) VALUES (:key, :value)")
+                        .addSynchronizedQuerySpace(table)
+                        .setParameter("key", SQLRecord.ID_TABLE_KEY)
+                        .setParameter("value", safeValue)
+                        .executeUpdate()
+                storedValue.toLong() < safeValue ->
+                    session.createNativeQuery("UPDATE $table SET $valueColumn = :value WHERE $keyColumn = :key")
+                        .addSynchronizedQuerySpace(table)
+                        .setParameter("key", SQLRecord.ID_TABLE_KEY)
+                        .setParameter("value", safeValue)
+                        .executeUpdate()
+            }
+        }
+    }
+
+    private fun adjustRecordCount(delta: Int) {
+        recordCount.getAndUpdate { if (it < 0) it else it + delta }
+    }
+
+    /**
+     * Iterates over the rows of all the records with a forward-only cursor
+     * (the JDBC driver fetches the rows in chunks instead of reading the whole result at once).
+     *
+     * The rows are converted directly to [Record]s, so no entities are instantiated.
+     *
+     * @param query [SQLRecord.SELECT_ROWS] or [SQLRecord.SELECT_SUMMARY_ROWS]
+     */
+    private fun StatelessSession.scrollRecords(query: String = SQLRecord.SELECT_ROWS): ScrollableResults {
+        return createQuery(query, Array<Any>::class.java)
+            .setFetchSize(SCROLL_FETCH_SIZE)
+            .scroll(ScrollMode.FORWARD_ONLY)
+    }
+
+    private fun ScrollableResults.asSequence(): Sequence<Array<*>> =
+        generateSequence { takeIf { it.next() }?.get() }
+
+    private inline fun <T> statelessRead(action: (StatelessSession) -> T): T {
+        val session = sessionFactory.openStatelessSession()
+        try {
+            with(session.beginTransaction()) {
+                val actionValue = action(session)
+                commit()
+                return actionValue
+            }
+        } finally {
+            session.close()
+        }
     }
 
     private inline fun <T> transaction(action: (Session) -> T): T {
@@ -121,4 +481,81 @@ class SQLDatabase(
             }
         }
     }
+
+    companion object {
+
+        private val openedDatabases: MutableMap<DatabaseMeta, SQLDatabase> = ConcurrentHashMap()
+
+        /**
+         * Gives the currently opened [SQLDatabase] of the given meta; `null` if it's not opened
+         */
+        internal fun getOpened(meta: DatabaseMeta): SQLDatabase? = openedDatabases[meta]
+
+        /**
+         * The hibernate option that specifies the class of the connection provider
+         */
+        private const val CONNECTION_PROVIDER_OPTION = "hibernate.connection.provider_class"
+
+        /**
+         * The hibernate option that specifies the JDBC batch size
+         */
+        private const val BATCH_SIZE_OPTION = "hibernate.jdbc.batch_size"
+
+        /**
+         * The hibernate option that specifies the default ordering of the `null` values
+         */
+        private const val NULL_ORDERING_OPTION = "hibernate.order_by.default_null_ordering"
+
+        /**
+         * The hibernate options applied in batching mode (unless they are specified explicitly)
+         */
+        private val BATCHING_OPTIONS = mapOf(
+            "hibernate.order_inserts" to "true",
+            "hibernate.order_updates" to "true",
+            "hibernate.jdbc.batch_versioned_data" to "true"
+        )
+
+        /**
+         * The hibernate option that specifies the prefix of the cache region names
+         */
+        private const val CACHE_REGION_PREFIX_OPTION = "hibernate.cache.region_prefix"
+
+        /**
+         * The hibernate options turning on the second-level and query cache, backed by Caffeine through JCache.
+         * The size and the expiry of the cache regions are configured by the `cache.conf` resource.
+         */
+        private val CACHE_OPTIONS = mapOf(
+            "hibernate.cache.use_second_level_cache" to "true",
+            "hibernate.cache.use_query_cache" to "true",
+            "hibernate.cache.region.factory_class" to "jcache",
+            "hibernate.javax.cache.provider" to "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+            "hibernate.javax.cache.uri" to "com/dansoftware/boomega/database/sql/cache.conf",
+            "hibernate.javax.cache.missing_cache_strategy" to "create"
+        )
+
+        /**
+         * The JDBC batch size used if it's not specified by the hibernate options
+         */
+        private const val DEFAULT_BATCH_SIZE = 50
+
+        /**
+         * The default maximum number of ids bound to a single bulk `DELETE` statement
+         */
+        const val DEFAULT_DELETE_CHUNK_SIZE = 1000
+
+        /**
+         * The number of rows fetched at once by the JDBC driver while iterating over a [RecordCursor]
+         */
+        private const val SCROLL_FETCH_SIZE = 512
+
+        /**
+         * The maximum number of record ids bound to a single query fetching the authors
+         */
+        private const val AUTHORS_QUERY_CHUNK_SIZE = 1000
+
+        /**
+         * The time (in milliseconds) the cached number of records is used for
+         */
+        private const val RECORD_COUNT_EXPIRY = 10_000L
+    }
 }
\ No newline at end of file
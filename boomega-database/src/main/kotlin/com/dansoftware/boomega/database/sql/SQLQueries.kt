@@ -0,0 +1,100 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.sql
+
+import com.dansoftware.boomega.database.api.RecordPredicate
+import com.dansoftware.boomega.database.api.RecordQuery
+import com.dansoftware.boomega.database.api.RecordSort
+import org.hibernate.Session
+import javax.persistence.criteria.*
+
+/**
+ * The escape character used in the `LIKE` patterns
+ */
+private const val LIKE_ESCAPE = '\\'
+
+/**
+ * Translates the given [RecordQuery] into a JPA [CriteriaQuery].
+ * The offset and the limit of the query has to be applied on the created query object.
+ */
+internal fun Session.createCriteriaQuery(query: RecordQuery): CriteriaQuery<SQLRecord> {
+    val cb = criteriaBuilder
+    val cq: CriteriaQuery<SQLRecord> = cb.createQuery(SQLRecord::class.java)
+    val root = cq.from(SQLRecord::class.java)
+    cq.select(root)
+
+    if (query.predicates.isNotEmpty()) {
+        cq.where(*query.predicates.map { it.asPredicate(cb, root) }.toTypedArray())
+        // joining a collection might produce the same record multiple times
+        cq.distinct(query.predicates.any(RecordPredicate::isCollectionProperty))
+    }
+
+    if (query.sort.isNotEmpty()) {
+        cq.orderBy(query.sort.map {
+            val path = root.get<Any>(it.property.id)
+            when (it.direction) {
+                RecordSort.Direction.ASCENDING -> cb.asc(path)
+                RecordSort.Direction.DESCENDING -> cb.desc(path)
+            }
+        })
+    }
+
+    return cq
+}
+
+@Suppress("UNCHECKED_CAST")
+private fun RecordPredicate.asPredicate(cb: CriteriaBuilder, root: Root<SQLRecord>): Predicate {
+    // the records without elements are joined as well (with a null element), so they can be matched by null
+    val path: Expression<Any> =
+        if (isCollectionProperty) root.join<SQLRecord, Any>(property.id, JoinType.LEFT)
+        else root.get(property.id)
+
+    return when (this) {
+        is RecordPredicate.Equals -> value?.let { cb.equal(path, it) } ?: cb.isNull(path)
+        is RecordPredicate.In -> {
+            // the values are matched the same way as in memory: a null value matches the records without a value
+            val nonNullValues = values.filterNotNull()
+            cb.or(*listOfNotNull(
+                nonNullValues.takeIf { it.isNotEmpty() }?.let { path.`in`(it) },
+                if (null in values) cb.isNull(path) else null
+            ).toTypedArray())
+        }
+        is RecordPredicate.Contains -> {
+            val pattern = "%${escapeLike(text)}%"
+            when {
+                ignoreCase -> cb.like(cb.lower(path as Expression<String>), pattern.lowercase(), LIKE_ESCAPE)
+                else -> cb.like(path as Expression<String>, pattern, LIKE_ESCAPE)
+            }
+        }
+        is RecordPredicate.Range -> {
+            val comparablePath = path as Expression<Comparable<Any>>
+            cb.and(*listOfNotNull(
+                from?.let { cb.greaterThanOrEqualTo(comparablePath, it as Comparable<Any>) },
+                to?.let { cb.lessThanOrEqualTo(comparablePath, it as Comparable<Any>) }
+            ).toTypedArray())
+        }
+    }
+}
+
+private fun escapeLike(text: String): String {
+    return text
+        .replace("$LIKE_ESCAPE", "$LIKE_ESCAPE$LIKE_ESCAPE")
+        .replace("%", "$LIKE_ESCAPE%")
+        .replace("_", "${LIKE_ESCAPE}_")
+}
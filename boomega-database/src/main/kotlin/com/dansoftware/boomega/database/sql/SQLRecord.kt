@@ -20,115 +20,95 @@ package com.dansoftware.boomega.database.sql
 
 import com.dansoftware.boomega.database.api.data.Record
 import com.dansoftware.boomega.database.api.data.ServiceConnection
+import org.hibernate.annotations.BatchSize
+import org.hibernate.annotations.Cache
+import org.hibernate.annotations.CacheConcurrencyStrategy
 import java.time.LocalDate
 import java.util.*
 import javax.persistence.*
 
 @Entity
 @Table(name = "BoomegaRecords")
-class SQLRecord @JvmOverloads constructor(@field:Transient private val baseRecord: Record? = null) {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BatchSize(size = SQLRecord.RECORDS_BATCH_SIZE)
+class SQLRecord() {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    var id: Long? = baseRecord?.id
-        set(value) {
-            field = value
-            baseRecord?.id = value
-        }
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = ID_GENERATOR)
+    @TableGenerator(
+        name = ID_GENERATOR,
+        table = ID_TABLE,
+        pkColumnName = ID_TABLE_KEY_COLUMN,
+        valueColumnName = ID_TABLE_VALUE_COLUMN,
+        pkColumnValue = ID_TABLE_KEY,
+        allocationSize = ID_ALLOCATION_SIZE
+    )
+    var id: Long? = null
 
-    var type: Record.Type = baseRecord?.type ?: Record.Type.BOOK
-        set(value) {
-            field = value
-            baseRecord?.type = value
-        }
+    var type: Record.Type = Record.Type.BOOK
 
-    var title: String? = baseRecord?.title
-        set(value) {
-            field = value
-            baseRecord?.title = value
-        }
+    var title: String? = null
 
-    var language: Locale? = baseRecord?.language
-        set(value) {
-            field = value
-            baseRecord?.language = language
-        }
+    var language: Locale? = null
 
-    var publisher: String? = baseRecord?.publisher
-        set(value) {
-            field = value
-            baseRecord?.publisher = value
-        }
+    var publisher: String? = null
 
-    var publishedDate: LocalDate? = baseRecord?.publishedDate
-        set(value) {
-            field = value
-            baseRecord?.publishedDate = value
-        }
+    var publishedDate: LocalDate? = null
 
-    var notes: String? = baseRecord?.notes
-        set(value) {
-            field = value
-            baseRecord?.notes = value
-        }
+    var notes: String? = null
 
-    var rating: Int? = baseRecord?.rating
-        set(value) {
-            field = value
-            baseRecord?.rating = value
-        }
+    var rating: Int? = null
 
-    var subtitle: String? = baseRecord?.subtitle
-        set(value) {
-            field = value
-            baseRecord?.subtitle = value
-        }
+    var subtitle: String? = null
 
-    var isbn: String? = baseRecord?.isbn
-        set(value) {
-            field = value
-            baseRecord?.isbn = value
-        }
+    var isbn: String? = null
 
-    var numberOfCopies: Int? = baseRecord?.numberOfCopies
-        set(value) {
-            field = value
-            baseRecord?.numberOfCopies = value
-        }
+    var numberOfCopies: Int? = null
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    var authors: List<String>? = baseRecord?.authors
-        set(value) {
-            field = value
-            baseRecord?.authors = value
-        }
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(indexes = [Index(name = "idx_record_author", columnList = "authors")])
+    @BatchSize(size = AUTHORS_BATCH_SIZE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    var authors: List<String>? = null
 
-    var subject: String? = baseRecord?.subject
-        set(value) {
-            field = value
-            baseRecord?.subject = value
-        }
+    var subject: String? = null
 
-    var magazineName: String? = baseRecord?.magazineName
-        set(value) {
-            field = value
-            baseRecord?.magazineName = value
-        }
+    var magazineName: String? = null
 
     // TODO: make service connection work
     @Transient
-    /*@ElementCollection
-    @Column(name = "serviceConnection")*/
-    private var serviceConnectionImpl: MutableMap<String, Any?> = HashMap(baseRecord?.serviceConnection ?: emptyMap())
-
-    var serviceConnection: ServiceConnection?
-        get() = ServiceConnection(serviceConnectionImpl)
-        set(value) {
-            serviceConnectionImpl.putAll(value as? Map<String, Any?> ?: emptyMap())
-            baseRecord?.serviceConnection = value?.copy()
-        }
+    var serviceConnection: ServiceConnection? = null
+
+    /**
+     * Creates the entity holding the values of the given [Record].
+     *
+     * The values are not shared back: the id generated on saving the entity should be
+     * assigned to the [Record] by the caller.
+     */
+    constructor(record: Record) : this() {
+        id = record.id
+        type = record.type
+        title = record.title
+        language = record.language
+        publisher = record.publisher
+        publishedDate = record.publishedDate
+        notes = record.notes
+        rating = record.rating
+        subtitle = record.subtitle
+        isbn = record.isbn
+        numberOfCopies = record.numberOfCopies
+        authors = record.authors
+        subject = record.subject
+        magazineName = record.magazineName
+    }
 
-    fun toBaseRecord(): Record {
+    /**
+     * Converts the entity to a [Record].
+     *
+     * @param authors the authors of the record; by default the (lazily loaded) [SQLRecord.authors]
+     */
+    fun toBaseRecord(authors: List<String>? = this.authors): Record {
         return Record(
             id = id,
             type = type,
@@ -148,4 +128,77 @@ class SQLRecord @JvmOverloads constructor(@field:Transient private val baseRecor
         )
     }
 
-}
\ No newline at end of file
+    internal companion object {
+
+        /**
+         * The ids are allocated in blocks through a table (instead of an identity column),
+         * so Hibernate is able to batch the inserts
+         */
+        const val ID_GENERATOR = "record_ids"
+        const val ID_TABLE = "BoomegaRecordIds"
+        const val ID_TABLE_KEY_COLUMN = "name"
+        const val ID_TABLE_VALUE_COLUMN = "next_val"
+        const val ID_TABLE_KEY = "BoomegaRecords"
+
+        /**
+         * The number of ids allocated at once
+         */
+        const val ID_ALLOCATION_SIZE = 50
+
+        /**
+         * The maximum number of authors collections initialized by a single query when
+         * they are loaded lazily
+         */
+        const val AUTHORS_BATCH_SIZE = 512
+
+        /**
+         * The maximum number of records loaded by a single query when they are loaded by their ids
+         * (e.g. the records of a cached query result that were evicted from the cache)
+         */
+        const val RECORDS_BATCH_SIZE = 512
+
+        /**
+         * The columns of the records selected as rows, that can be converted directly into [Record]s
+         * by [rowToRecord] (without instantiating the entities)
+         */
+        private const val ROW_COLUMNS = "r.id, r.type, r.title, r.language, r.publisher, r.publishedDate, " +
+                "r.rating, r.subtitle, r.isbn, r.numberOfCopies, r.subject, r.magazineName"
+
+        /**
+         * Selects the records as rows (the notes are the last column)
+         */
+        const val SELECT_ROWS = "SELECT $ROW_COLUMNS, r.notes FROM SQLRecord r"
+
+        /**
+         * Selects the records as rows without their notes
+         */
+        const val SELECT_SUMMARY_ROWS = "SELECT $ROW_COLUMNS FROM SQLRecord r"
+
+        /**
+         * Gives the id of a row selected by [SELECT_ROWS] or [SELECT_SUMMARY_ROWS]
+         */
+        fun rowId(row: Array<*>): Long = row[0] as Long
+
+        /**
+         * Converts a row selected by [SELECT_ROWS] or [SELECT_SUMMARY_ROWS] to a [Record]
+         */
+        fun rowToRecord(row: Array<*>, authors: List<String>?): Record {
+            return Record(
+                id = row[0] as Long,
+                type = row[1] as Record.Type,
+                title = row[2] as String?,
+                language = row[3] as Locale?,
+                publisher = row[4] as String?,
+                publishedDate = row[5] as LocalDate?,
+                rating = row[6] as Int?,
+                subtitle = row[7] as String?,
+                isbn = row[8] as String?,
+                numberOfCopies = row[9] as Int?,
+                authors = authors,
+                subject = row[10] as String?,
+                magazineName = row[11] as String?,
+                notes = row.getOrNull(12) as String?
+            )
+        }
+    }
+}
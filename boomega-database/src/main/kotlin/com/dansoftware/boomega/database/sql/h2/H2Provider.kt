@@ -0,0 +1,138 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.sql.h2
+
+import com.dansoftware.boomega.database.api.*
+import com.dansoftware.boomega.database.sql.SQLDatabase
+import com.dansoftware.boomega.database.sql.h2.gui.H2LoginForm
+import com.dansoftware.boomega.database.sql.h2.gui.H2RegistrationForm
+import com.dansoftware.boomega.gui.api.Context
+import com.dansoftware.boomega.gui.util.icon
+import com.dansoftware.boomega.i18n.api.i18n
+import javafx.beans.property.ReadOnlyObjectProperty
+import javafx.scene.Node
+import org.h2.api.ErrorCode
+import org.hibernate.HibernateException
+import java.io.File
+import java.sql.SQLException
+
+/**
+ * Represents the embedded, file based H2 database engine. The databases are accessed through the same
+ * Hibernate based [SQLDatabase] as the MySQL databases, but they don't need a separate server.
+ */
+object H2Provider : DatabaseProvider<H2Meta> {
+
+    /**
+     * Represents the username credential value.
+     */
+    val USERNAME_FIELD = DatabaseField(
+        valueType = String::class.java,
+        id = "usrnm",
+        name = i18n("credentials.username")
+    )
+
+    /**
+     * Represents the password credential value.
+     */
+    val PASSWORD_FIELD = DatabaseField(
+        valueType = String::class.java,
+        id = "psswrd",
+        name = i18n("credentials.password")
+    )
+
+    /**
+     * The user of the databases created without authentication
+     */
+    private const val DEFAULT_USERNAME = "sa"
+
+    override val name: String
+        get() = "H2"
+
+    override val icon: Node
+        get() = icon("database-icon")
+
+    override val availableOptions: List<DatabaseOption<*>> = emptyList()
+
+    override val fields: List<DatabaseField<*>> = listOf(
+        USERNAME_FIELD,
+        PASSWORD_FIELD
+    )
+
+    override fun getMeta(identifier: String): H2Meta {
+        return H2Meta(File(identifier))
+    }
+
+    override fun getDatabase(
+        meta: H2Meta,
+        credentials: Map<DatabaseField<*>, Any?>,
+        options: Map<DatabaseOption<*>, Any>
+    ): Database {
+        // the settings appended to the url (e.g. INIT=RUNSCRIPT ...) could execute arbitrary code
+        if (';' in meta.jdbcUrl)
+            throw DatabaseConstructionException(
+                localizedMessage = i18n("login.failed.security"),
+                message = "The path of the H2 database must not contain ';'"
+            )
+        return try {
+            SQLDatabase(
+                meta,
+                hibernateOptions = mapOf(
+                    "hibernate.connection.driver_class" to "org.h2.Driver",
+                    "hibernate.dialect" to "org.hibernate.dialect.H2Dialect",
+                    "hibernate.hbm2ddl.auto" to "update",
+                    "hibernate.connection.url" to meta.jdbcUrl,
+                    "hibernate.connection.username" to
+                            (credentials[USERNAME_FIELD]?.toString()?.takeIf { it.isNotBlank() } ?: DEFAULT_USERNAME),
+                    "hibernate.connection.password" to (credentials[PASSWORD_FIELD]?.toString() ?: ""),
+                    // an embedded database is used by a single user
+                    "hibernate.hikari.minimumIdle" to "1"
+                )
+            )
+        } catch (e: HibernateException) {
+            throw DatabaseConstructionException(localizedMessage = e.specificMessage(), cause = e)
+        }
+    }
+
+    override fun buildUILoginForm(
+        context: Context,
+        databaseMeta: ReadOnlyObjectProperty<H2Meta>,
+        options: Map<DatabaseOption<*>, Any>
+    ): LoginForm<H2Meta> {
+        return H2LoginForm(context, databaseMeta, options)
+    }
+
+    override fun buildUIRegistrationForm(
+        context: Context,
+        options: Map<DatabaseOption<*>, Any>
+    ): RegistrationForm<H2Meta> {
+        return H2RegistrationForm(context, options)
+    }
+
+    private fun HibernateException.specificMessage(): String {
+        val sqlException = generateSequence<Throwable>(this) { it.cause }.filterIsInstance<SQLException>().firstOrNull()
+        return i18n(
+            when (sqlException?.errorCode) {
+                ErrorCode.WRONG_USER_OR_PASSWORD -> "login.failed.invalid_user_password"
+                ErrorCode.DATABASE_ALREADY_OPEN_1 -> "login.failed.database_opened_in_other_process"
+                null -> "login.failed.security"
+                else -> "login.failed.io"
+            }
+        )
+    }
+}
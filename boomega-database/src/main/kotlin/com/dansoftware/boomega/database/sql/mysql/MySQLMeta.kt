@@ -20,6 +20,7 @@ package com.dansoftware.boomega.database.sql.mysql
 
 import com.dansoftware.boomega.database.api.DatabaseMeta
 import com.dansoftware.boomega.database.api.DatabaseProvider
+import com.dansoftware.boomega.database.sql.SQLDatabase
 
 /**
  * Represents the meta-information of a mysql database
@@ -98,8 +99,20 @@ class MySQLMeta : DatabaseMeta {
         this.version = version
     }
 
+    override fun isActionSupported(action: Action<*>): Boolean {
+        return when (action) {
+            Action.PoolStatistics -> SQLDatabase.getOpened(this)?.connectionPoolStatistics !== null
+            else -> super.isActionSupported(action)
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
     override fun <T> performAction(action: Action<T>): T {
-        throw UnsupportedOperationException()
+        return when (action) {
+            Action.PoolStatistics -> (SQLDatabase.getOpened(this)?.connectionPoolStatistics
+                ?: throw IllegalStateException("The database '$this' is not opened")) as T
+            else -> throw UnsupportedOperationException()
+        }
     }
 
     override fun equals(other: Any?): Boolean {
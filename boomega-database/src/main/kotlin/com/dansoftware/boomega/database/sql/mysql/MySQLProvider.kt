@@ -63,6 +63,68 @@ object MySQLProvider : DatabaseProvider<MySQLMeta> {
         name = i18n("credentials.password")
     )
 
+    /**
+     * Represents the JDBC batch size configuration; `1` turns the batching off
+     */
+    val BATCH_SIZE = DatabaseOption(
+        id = "btchsz",
+        name = i18n("database.mysql.option.batch_size"),
+        type = Int::class.java,
+        defaultValue = 50
+    )
+
+    /**
+     * Represents the configuration of the driver's `rewriteBatchedStatements` property
+     * (sending the batched inserts as multi-row statements)
+     */
+    val REWRITE_BATCHED_STATEMENTS = DatabaseOption(
+        id = "rwrtbtch",
+        name = i18n("database.mysql.option.rewrite_batched"),
+        type = Boolean::class.java,
+        defaultValue = true
+    )
+
+    /**
+     * Represents the maximum number of ids bound to a single bulk `DELETE` statement
+     */
+    val DELETE_CHUNK_SIZE = DatabaseOption(
+        id = "dltchnksz",
+        name = i18n("database.mysql.option.delete_chunk_size"),
+        type = Int::class.java,
+        defaultValue = SQLDatabase.DEFAULT_DELETE_CHUNK_SIZE
+    )
+
+    /**
+     * Represents the minimum number of idle connections kept in the connection pool
+     */
+    val POOL_MIN_SIZE = DatabaseOption(
+        id = "plmn",
+        name = i18n("database.mysql.option.pool_min_size"),
+        type = Int::class.java,
+        defaultValue = 2
+    )
+
+    /**
+     * Represents the maximum number of connections in the connection pool
+     */
+    val POOL_MAX_SIZE = DatabaseOption(
+        id = "plmx",
+        name = i18n("database.mysql.option.pool_max_size"),
+        type = Int::class.java,
+        defaultValue = 10
+    )
+
+    /**
+     * Represents the configuration of caching the records in memory.
+     * Turned off by default, since the cache doesn't notice the changes made by other clients of the server.
+     */
+    val CACHE = DatabaseOption(
+        id = "cch",
+        name = i18n("database.mysql.option.cache"),
+        type = Boolean::class.java,
+        defaultValue = false
+    )
+
     override val name: String
         get() = "MySQL"
 
@@ -70,7 +132,14 @@ object MySQLProvider : DatabaseProvider<MySQLMeta> {
         get() = icon("mysql-icon")
 
     override val availableOptions: List<DatabaseOption<*>>
-        get() = emptyList()
+        get() = listOf(
+            BATCH_SIZE,
+            REWRITE_BATCHED_STATEMENTS,
+            DELETE_CHUNK_SIZE,
+            POOL_MIN_SIZE,
+            POOL_MAX_SIZE,
+            CACHE
+        )
 
     override val fields: List<DatabaseField<*>>
         get() = listOf(
@@ -112,8 +181,17 @@ object MySQLProvider : DatabaseProvider<MySQLMeta> {
                     "hibernate.hbm2ddl.auto" to "update",
                     "hibernate.connection.url" to "jdbc:mysql://${meta.uri}",
                     "hibernate.connection.username" to credentials[USERNAME_FIELD].toString(),
-                    "hibernate.connection.password" to credentials[PASSWORD_FIELD].toString()
-                )
+                    "hibernate.connection.password" to credentials[PASSWORD_FIELD].toString(),
+                    "hibernate.jdbc.batch_size" to BATCH_SIZE.getValueFrom(options).toString(),
+                    "hibernate.hikari.minimumIdle" to POOL_MIN_SIZE.getValueFrom(options).toString(),
+                    "hibernate.hikari.maximumPoolSize" to POOL_MAX_SIZE.getValueFrom(options).toString(),
+                    // passed to the driver as a connection property
+                    "hibernate.hikari.dataSource.rewriteBatchedStatements" to REWRITE_BATCHED_STATEMENTS.getValueFrom(options).toString(),
+                    // otherwise the driver reads the whole result set into the memory, regardless of the fetch size
+                    "hibernate.hikari.dataSource.useCursorFetch" to "true"
+                ),
+                useCache = CACHE.getValueFrom(options),
+                deleteChunkSize = DELETE_CHUNK_SIZE.getValueFrom(options)
             )
         } catch(e: HibernateException) {
             throw DatabaseConstructionException(localizedMessage = e.specificMessage(), cause = e)
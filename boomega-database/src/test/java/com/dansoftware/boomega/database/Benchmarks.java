@@ -0,0 +1,97 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database;
+
+import com.dansoftware.boomega.database.api.data.Record;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utilities for the database benchmarks.
+ *
+ * The benchmarks are disabled by default; they can be run with the {@code -Pbenchmark} gradle option.
+ */
+public final class Benchmarks {
+
+    /**
+     * The system property that enables the benchmarks
+     */
+    public static final String ENABLED_PROPERTY = "boomega.benchmark";
+
+    private static final String[] PUBLISHERS = {"Penguin", "HarperCollins", "Macmillan", "Hachette", "Springer"};
+    private static final String[] SUBJECTS = {
+            "History", "Fiction", "Science", "Poetry", "Computers", "Biography", "Art", "Travel", "Cooking",
+            "Philosophy", "Religion", "Economics", "Law", "Medicine", "Music", "Sports", "Education", "Children"
+    };
+    private static final Locale[] LANGUAGES = {Locale.ENGLISH, Locale.GERMAN, Locale.FRENCH, new Locale("hu")};
+
+    /**
+     * The number of distinct authors & smaller publishers; about ten books per author in a 200k catalog
+     */
+    private static final int AUTHORS = 20_000;
+    private static final int SMALL_PUBLISHERS = 400;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Generates the given number of (not persisted) book records with realistic, repeating values:
+     * most of the records are published by a few big publishers in English, and the authors have
+     * about ten books each. The repeated values are separate instances, like the ones of the loaded records.
+     */
+    public static List<Record> generateRecords(int count) {
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Record record = new Record(Record.Type.BOOK);
+            record.setTitle("Title " + i);
+            record.setSubtitle("Subtitle " + i);
+            record.setIsbn(String.format("978%010d", i));
+            record.setAuthors(i % 3 == 0
+                    ? List.of("Author " + (i % AUTHORS), "Author " + (i * 31 % AUTHORS))
+                    : List.of("Author " + (i % AUTHORS)));
+            record.setPublisher(i % 10 < 7
+                    ? new String(PUBLISHERS[i % PUBLISHERS.length])
+                    : "Publisher " + (i * 7919 % SMALL_PUBLISHERS));
+            record.setSubject(new String(SUBJECTS[i % SUBJECTS.length]));
+            record.setLanguage(i % 10 < 6 ? Locale.ENGLISH : LANGUAGES[i % LANGUAGES.length]);
+            record.setPublishedDate(LocalDate.of(1950 + i % 70, 1 + i % 12, 1 + i % 28));
+            record.setNumberOfCopies(1 + i % 3);
+            record.setRating(i % 6);
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Runs the given action and prints the elapsed time.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public static long measure(String name, Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.printf("[benchmark] %s: %d ms%n", name, elapsed);
+        return elapsed;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api;
+
+import com.dansoftware.boomega.database.api.data.Record;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatabaseEventBusTest {
+
+    @Test
+    void itShouldDeliverThePendingEventsOnClose() {
+        List<DatabaseChangeEvent> received = new CopyOnWriteArrayList<>();
+        DatabaseEventBus eventBus = new DatabaseEventBus(60_000);
+        eventBus.addListener(received::add);
+        eventBus.publish(DatabaseChangeType.INSERT, List.of(new Record(Record.Type.BOOK)));
+        eventBus.publish(DatabaseChangeType.INSERT, List.of(new Record(Record.Type.BOOK)));
+        eventBus.publish(DatabaseChangeType.DELETE, List.of(new Record(Record.Type.BOOK)));
+        eventBus.close();
+
+        assertThat(received).map(DatabaseChangeEvent::getType)
+                .containsExactly(DatabaseChangeType.INSERT, DatabaseChangeType.DELETE);
+        assertThat(received.get(0).getRecords()).hasSize(2);
+    }
+
+    @Test
+    void itShouldDropTheEventsPublishedAfterClose() {
+        List<DatabaseChangeEvent> received = new CopyOnWriteArrayList<>();
+        DatabaseEventBus eventBus = new DatabaseEventBus(0);
+        eventBus.addListener(received::add);
+        eventBus.close();
+        eventBus.publish(DatabaseChangeType.INSERT, List.of(new Record(Record.Type.BOOK)));
+
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void itShouldDeliverTheEventsToTheListenersAddedWithinTheWindow() {
+        List<DatabaseChangeEvent> received = new CopyOnWriteArrayList<>();
+        DatabaseEventBus eventBus = new DatabaseEventBus(60_000);
+        eventBus.publish(DatabaseChangeType.UPDATE, List.of(new Record(Record.Type.BOOK)));
+        eventBus.addListener(received::add);
+        eventBus.close();
+
+        assertThat(received).hasSize(1);
+    }
+}
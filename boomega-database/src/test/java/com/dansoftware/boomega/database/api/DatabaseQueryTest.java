@@ -0,0 +1,199 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.api;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.api.data.RecordProperty;
+import com.dansoftware.boomega.di.DIService;
+import kotlin.sequences.SequencesKt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that a {@link Database} implementation evaluates the {@link RecordQuery}s
+ * the same way as the in-memory evaluation ({@link RecordQuery#execute}) does.
+ * <p>
+ * It's extended by the tests of the particular implementations.
+ */
+public abstract class DatabaseQueryTest {
+
+    @TempDir Path tempDir;
+    private Database database;
+
+    /**
+     * Opens an empty database of the tested implementation in the given directory.
+     */
+    protected abstract Database openDatabase(Path directory);
+
+    @BeforeAll
+    static void prepareDIService() {
+        // the record properties are localized
+        try {
+            DIService.init();
+        } catch (IllegalStateException e) {
+            // already initialized by another test
+        }
+    }
+
+    @BeforeEach
+    void initialize() {
+        List<Record> records = Benchmarks.generateRecords(50);
+        for (int i = 0; i < records.size(); i++) {
+            if (i % 3 == 0) records.get(i).setType(Record.Type.MAGAZINE);
+            if (i % 7 == 0) records.get(i).setPublisher(null);
+            if (i % 5 == 0) records.get(i).setAuthors(i % 10 == 0 ? null : List.of());
+        }
+        database = openDatabase(tempDir);
+        database.insertRecords(records);
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    private List<Record> executeInMemory(RecordQuery query) {
+        return query.execute(SequencesKt.asSequence(database.getRecords().iterator()));
+    }
+
+    private void assertSameRecords(RecordQuery query) {
+        assertThat(database.find(query))
+                .extracting(Record::getId)
+                .containsExactlyInAnyOrderElementsOf(executeInMemory(query).stream().map(Record::getId).toList());
+    }
+
+    private <T> void assertSameOrder(RecordQuery query, Function<Record, T> sortKey) {
+        assertThat(database.find(query))
+                .map(sortKey)
+                .containsExactlyElementsOf(executeInMemory(query).stream().map(sortKey).toList());
+    }
+
+    @Test
+    void itShouldSortTheTypesInTheirDeclarationOrder() {
+        for (RecordSort.Direction direction : RecordSort.Direction.values()) {
+            var query = new RecordQuery.Builder().sortBy(new RecordSort(RecordProperty.TYPE, direction)).build();
+            assertSameOrder(query, Record::getType);
+        }
+    }
+
+    @Test
+    void itShouldPlaceTheMissingValuesLast() {
+        for (RecordSort.Direction direction : RecordSort.Direction.values()) {
+            var query = new RecordQuery.Builder().sortBy(new RecordSort(RecordProperty.PUBLISHER, direction)).build();
+            assertSameOrder(query, Record::getPublisher);
+        }
+    }
+
+    @Test
+    void itShouldMatchTheTextsByEquals() {
+        var query = new RecordQuery.Builder()
+                .where(new RecordPredicate.Equals(RecordProperty.TITLE, "Title 12"))
+                .build();
+        assertThat(database.find(query)).extracting(Record::getTitle).containsExactly("Title 12");
+    }
+
+    @Test
+    void itShouldMatchTheTextsByIn() {
+        var query = new RecordQuery.Builder()
+                .where(new RecordPredicate.In(RecordProperty.TITLE, List.of("Title 12", "Title 13", "Title")))
+                .build();
+        assertThat(database.find(query)).extracting(Record::getTitle).containsExactlyInAnyOrder("Title 12", "Title 13");
+    }
+
+    @Test
+    void itShouldMatchThePartsOfTheTextsByContains() {
+        var query = new RecordQuery.Builder()
+                .where(new RecordPredicate.Contains(RecordProperty.TITLE, "tle 4", true))
+                .build();
+        // "Title 4" and "Title 40" ... "Title 49"
+        assertThat(database.find(query)).hasSize(11);
+        assertSameRecords(query);
+    }
+
+    @Test
+    void itShouldMatchTheMissingValuesByEquals() {
+        var query = new RecordQuery.Builder()
+                .where(new RecordPredicate.Equals(RecordProperty.PUBLISHER, null))
+                .build();
+        assertThat(database.find(query)).isNotEmpty();
+        assertSameRecords(query);
+    }
+
+    @Test
+    void itShouldMatchTheMissingValuesByIn() {
+        var query = new RecordQuery.Builder()
+                .where(new RecordPredicate.In(RecordProperty.PUBLISHER, Arrays.asList(null, "Penguin")))
+                .build();
+        assertThat(database.find(query)).extracting(Record::getPublisher).contains(null, "Penguin");
+        assertSameRecords(query);
+    }
+
+    @Test
+    void itShouldMatchTheRecordsWithoutAuthorsByEquals() {
+        var query = new RecordQuery.Builder()
+                .where(new RecordPredicate.Equals(RecordProperty.AUTHORS, null))
+                .build();
+        assertThat(database.find(query)).hasSize(10);
+        assertSameRecords(query);
+    }
+
+    @Test
+    void itShouldMatchTheRecordsWithoutAuthorsByIn() {
+        var query = new RecordQuery.Builder()
+                .where(new RecordPredicate.In(RecordProperty.AUTHORS, Arrays.asList(null, "Author 1")))
+                .build();
+        assertThat(database.find(query)).hasSize(11);
+        assertSameRecords(query);
+    }
+
+    @Test
+    void itShouldSkipTheFilteredRecordsBeyondTheResult() {
+        var query = new RecordQuery.Builder()
+                .where(new RecordPredicate.Equals(RecordProperty.PUBLISHER, null))
+                .sortBy(new RecordSort(RecordProperty.TITLE, RecordSort.Direction.ASCENDING))
+                .offset(5)
+                .limit(3)
+                .build();
+        assertSameOrder(query, Record::getTitle);
+
+        var beyond = new RecordQuery.Builder()
+                .where(new RecordPredicate.Equals(RecordProperty.PUBLISHER, null))
+                .offset(50)
+                .build();
+        assertThat(database.find(beyond)).isEmpty();
+    }
+
+    @Test
+    void itShouldMatchNothingByAnEmptyIn() {
+        var query = new RecordQuery.Builder()
+                .where(new RecordPredicate.In(RecordProperty.PUBLISHER, List.of()))
+                .build();
+        assertThat(database.find(query)).isEmpty();
+    }
+}
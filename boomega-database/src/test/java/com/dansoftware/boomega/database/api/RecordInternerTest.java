@@ -0,0 +1,75 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api;
+
+import com.dansoftware.boomega.database.api.data.Record;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RecordInternerTest {
+
+    private final RecordInterner underTest = new RecordInterner();
+
+    private static Record createRecord() {
+        Record record = new Record(Record.Type.BOOK);
+        // new instances on purpose, like the ones created when the records are loaded
+        record.setPublisher(new String("Penguin"));
+        record.setLanguage(Locale.forLanguageTag("hu"));
+        record.setAuthors(new ArrayList<>(List.of(new String("Author A"), new String("Author B"))));
+        return record;
+    }
+
+    @Test
+    void itShouldShareTheEqualValues() {
+        Record first = underTest.intern(createRecord());
+        Record second = underTest.intern(createRecord());
+
+        assertThat(second.getPublisher()).isSameAs(first.getPublisher());
+        assertThat(second.getLanguage()).isSameAs(first.getLanguage());
+        assertThat(second.getAuthors()).isSameAs(first.getAuthors());
+        assertThat(second.getAuthors().get(0)).isSameAs(first.getAuthors().get(0));
+    }
+
+    @Test
+    void itShouldShareTheEqualValuesAcrossThreads() {
+        List<Record> records = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> underTest.intern(createRecord())))
+                .map(CompletableFuture::join)
+                .toList();
+
+        assertThat(records).map(Record::getPublisher).allMatch(it -> it == records.get(0).getPublisher());
+        assertThat(records).map(Record::getAuthors).allMatch(it -> it == records.get(0).getAuthors());
+    }
+
+    @Test
+    void itShouldMakeTheAuthorListsImmutable() {
+        List<String> authors = underTest.intern(createRecord()).getAuthors();
+
+        assertThat(authors).containsExactly("Author A", "Author B");
+        assertThatThrownBy(() -> authors.add("Author C")).isInstanceOf(UnsupportedOperationException.class);
+    }
+}
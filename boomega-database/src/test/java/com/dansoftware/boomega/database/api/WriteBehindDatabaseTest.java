@@ -0,0 +1,195 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.api;
+
+import com.dansoftware.boomega.database.api.data.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindDatabaseTest {
+
+    private static final long NEVER = 3_600_000L;
+
+    @Mock
+    private Database database;
+
+    private static Record createRecord(long id, String title) {
+        Record record = new Record(Record.Type.BOOK);
+        record.setId(id);
+        record.setTitle(title);
+        return record;
+    }
+
+    @Test
+    void itShouldMergeTheRepeatedUpdatesOfTheSameRecord() {
+        WriteBehindDatabase underTest = new WriteBehindDatabase(database, NEVER, 100);
+        Record first = createRecord(1, "First");
+        Record second = createRecord(2, "Second");
+        Record firstEdited = createRecord(1, "First edited");
+
+        underTest.updateRecord(first);
+        underTest.updateRecord(second);
+        underTest.updateRecord(firstEdited);
+
+        verify(database, never()).updateRecords(any());
+        assertThat(underTest.getPendingCount()).isEqualTo(2);
+
+        underTest.flush();
+
+        verify(database).updateRecords(List.of(firstEdited, second));
+        assertThat(underTest.getPendingCount()).isZero();
+        underTest.close();
+    }
+
+    @Test
+    void itShouldFlushWhenTheThresholdIsReached() {
+        WriteBehindDatabase underTest = new WriteBehindDatabase(database, NEVER, 2);
+        Record first = createRecord(1, "First");
+        Record second = createRecord(2, "Second");
+
+        underTest.updateRecord(first);
+        verify(database, never()).updateRecords(any());
+
+        underTest.updateRecord(second);
+        verify(database).updateRecords(List.of(first, second));
+        underTest.close();
+    }
+
+    @Test
+    void itShouldFlushAfterTheDelay() {
+        WriteBehindDatabase underTest = new WriteBehindDatabase(database, 10, 100);
+        Record record = createRecord(1, "First");
+
+        underTest.updateRecord(record);
+
+        verify(database, timeout(5000)).updateRecords(List.of(record));
+        underTest.close();
+    }
+
+    @Test
+    void itShouldRetryAndReportTheFailedFlushes() {
+        WriteBehindDatabase underTest = new WriteBehindDatabase(database, 10, 100);
+        List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+        underTest.setOnFlushFailed(failures::add);
+        Record record = createRecord(1, "First");
+        RuntimeException failure = new IllegalStateException("The disk is full");
+        doThrow(failure).doNothing().when(database).updateRecords(List.of(record));
+
+        underTest.updateRecord(record);
+
+        verify(database, timeout(5000).times(2)).updateRecords(List.of(record));
+        assertThat(failures).containsExactly(failure);
+        assertThat(underTest.getPendingCount()).isZero();
+        underTest.close();
+    }
+
+    @Test
+    void itShouldCloseTheDatabaseEvenIfTheFlushFails() {
+        WriteBehindDatabase underTest = new WriteBehindDatabase(database, NEVER, 100);
+        Record record = createRecord(1, "First");
+        doThrow(new IllegalStateException()).when(database).updateRecords(List.of(record));
+
+        underTest.updateRecord(record);
+
+        assertThatThrownBy(underTest::close).isInstanceOf(IllegalStateException.class);
+        verify(database).close();
+    }
+
+    @Test
+    void itShouldFlushBeforeClosing() {
+        WriteBehindDatabase underTest = new WriteBehindDatabase(database, NEVER, 100);
+        Record record = createRecord(1, "First");
+
+        underTest.updateRecord(record);
+        underTest.close();
+
+        var order = inOrder(database);
+        order.verify(database).updateRecords(List.of(record));
+        order.verify(database).close();
+    }
+
+    @Test
+    void itShouldFlushBeforeReading() {
+        WriteBehindDatabase underTest = new WriteBehindDatabase(database, NEVER, 100);
+        Record record = createRecord(1, "First");
+
+        underTest.updateRecord(record);
+        underTest.getRecords();
+
+        var order = inOrder(database);
+        order.verify(database).updateRecords(List.of(record));
+        order.verify(database).getRecords();
+        underTest.close();
+    }
+
+    @Test
+    void itShouldCoalesceTheRepeatedSavesOfTheEditor() {
+        WriteBehindDatabase underTest = new WriteBehindDatabase(database, NEVER, 100);
+        Record first = createRecord(1, "First");
+        Record second = createRecord(2, "Second");
+        Record other = createRecord(3, "Other");
+        when(database.findByIds(List.of(3L))).thenReturn(List.of(other));
+
+        // the editor saves the edited records and reads them back after each change
+        for (int i = 1; i <= 5; i++) {
+            first.setTitle("First " + i);
+            second.setTitle("Second " + i);
+            underTest.updateRecords(List.of(first, second));
+            assertThat(underTest.findByIds(List.of(1L, 2L)))
+                    .extracting(Record::getTitle)
+                    .containsExactly("First " + i, "Second " + i);
+        }
+        assertThat(underTest.findByIds(List.of(1L, 3L))).extracting(Record::getTitle).containsExactly("First 5", "Other");
+
+        verify(database, never()).updateRecords(any());
+        assertThat(underTest.getPendingCount()).isEqualTo(2);
+
+        underTest.close();
+        verify(database, times(1)).updateRecords(List.of(first, second));
+    }
+
+    @Test
+    void itShouldNotWriteTheRemovedRecords() {
+        WriteBehindDatabase underTest = new WriteBehindDatabase(database, NEVER, 100);
+        Record record = createRecord(1, "First");
+
+        underTest.updateRecord(record);
+        underTest.removeRecord(record);
+        underTest.close();
+
+        verify(database).removeRecords(List.of(record));
+        verify(database, never()).updateRecords(any());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api.data;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the memory footprint of the {@link Record}s with JOL.
+ */
+public class RecordFootprintTest {
+
+    private static long footprintOf(Record record) {
+        return GraphLayout.parseInstance(record).totalSize();
+    }
+
+    @Test
+    void itShouldNotAllocateAConnectionWhenItIsRead() {
+        Record record = Benchmarks.generateRecords(1).get(0);
+        long before = footprintOf(record);
+
+        assertThat(record.getServiceConnection()).isEmpty();
+        assertThat(record.copy().getServiceConnection()).isEmpty();
+
+        // previously the first read allocated (and stored) an empty service connection
+        long legacyFootprint = before + GraphLayout.parseInstance(new ServiceConnection()).totalSize();
+        assertThat(footprintOf(record)).isEqualTo(before).isLessThan(legacyFootprint);
+    }
+
+    @Test
+    void itShouldHoldTheGoogleBookHandleWithoutAMap() {
+        Record record = Benchmarks.generateRecords(1).get(0);
+        long before = footprintOf(record);
+
+        record.setGoogleBookHandle("zyTCAlFPjgYC");
+        GraphLayout layout = GraphLayout.parseInstance(record);
+
+        assertThat(layout.getClasses()).doesNotContain(ServiceConnection.class, HashMap.class);
+        // only the handle string itself is added
+        assertThat(layout.totalSize() - before)
+                .isEqualTo(GraphLayout.parseInstance(record.getGoogleBookHandle()).totalSize());
+        assertThat(record.getServiceConnection()).containsEntry(ServiceConnection.GOOGLE_BOOK_HANDLE, "zyTCAlFPjgYC");
+    }
+
+    @Test
+    void itShouldSplitTheGoogleBookHandleFromTheOtherEntries() {
+        Record record = Benchmarks.generateRecords(1).get(0);
+        record.setServiceConnection(new ServiceConnection(Map.of(ServiceConnection.GOOGLE_BOOK_HANDLE, "xyz")));
+
+        assertThat(record.getGoogleBookHandle()).isEqualTo("xyz");
+        assertThat(GraphLayout.parseInstance(record).getClasses()).doesNotContain(ServiceConnection.class);
+
+        record.setServiceConnection(new ServiceConnection(Map.of("other", 1L)));
+        assertThat(record.getGoogleBookHandle()).isNull();
+        assertThat(record.getServiceConnection()).containsExactly(Map.entry("other", 1L));
+    }
+
+    @Test
+    void itShouldWriteTheModificationsOfTheConnectionIntoTheRecord() {
+        Record record = Benchmarks.generateRecords(1).get(0);
+        long before = footprintOf(record);
+
+        record.getServiceConnection().put(ServiceConnection.GOOGLE_BOOK_HANDLE, "xyz");
+        record.getServiceConnection().put("other", 1L);
+        assertThat(record.getGoogleBookHandle()).isEqualTo("xyz");
+        assertThat(record.getServiceConnection())
+                .containsOnly(Map.entry(ServiceConnection.GOOGLE_BOOK_HANDLE, "xyz"), Map.entry("other", 1L));
+
+        record.getServiceConnection().remove("other");
+        record.getServiceConnection().remove(ServiceConnection.GOOGLE_BOOK_HANDLE);
+        assertThat(record.getServiceConnection()).isEmpty();
+        assertThat(footprintOf(record)).isEqualTo(before);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.bmdb;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.DatabaseMeta;
+import com.dansoftware.boomega.database.api.data.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BMDBDatabaseTest {
+
+    @TempDir Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(BMDBDurability.class)
+    void itShouldKeepTheChangesAfterReopening(BMDBDurability durability) {
+        BMDBMeta meta = new BMDBMeta(tempDir.resolve("test.bmdb").toFile());
+        List<Record> records = Benchmarks.generateRecords(10);
+
+        // every write is a group of its own, and the periodic group commit never comes
+        BMDBDatabase database = new BMDBDatabase(null, null, meta, true, 1024, durability, 60_000L, 1);
+        records.forEach(database::insertRecord);
+        Record updated = records.get(0);
+        updated.setTitle("Updated");
+        database.updateRecord(updated);
+        database.removeRecord(records.get(1));
+        assertThat(database.hasUnsavedChanges()).isEqualTo(durability == BMDBDurability.ON_CLOSE);
+        database.close();
+
+        BMDBDatabase reopened = new BMDBDatabase(null, null, meta);
+        try {
+            assertThat(reopened.getTotalRecordCount()).isEqualTo(9);
+            assertThat(reopened.findById(updated.getId()).getTitle()).isEqualTo("Updated");
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void itShouldReclaimTheSpaceOfTheRemovedRecords() {
+        BMDBMeta meta = new BMDBMeta(tempDir.resolve("test.bmdb").toFile());
+        List<Record> records = Benchmarks.generateRecords(5000);
+
+        BMDBDatabase database = new BMDBDatabase(null, null, meta);
+        database.insertRecords(records);
+        database.removeRecords(records.subList(100, records.size()));
+        database.close();
+
+        List<Double> progress = new ArrayList<>();
+        long reclaimed = meta.performAction(new DatabaseMeta.Action.Compact(value -> {
+            progress.add(value);
+            return kotlin.Unit.INSTANCE;
+        }));
+
+        assertThat(reclaimed).isPositive();
+        assertThat(progress).isNotEmpty().isSorted().last().isEqualTo(1.0);
+
+        BMDBDatabase reopened = new BMDBDatabase(null, null, meta);
+        try {
+            assertThat(reopened.getTotalRecordCount()).isEqualTo(100);
+            assertThat(reopened.findById(records.get(0).getId())).isNotNull();
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void itShouldReportTheInPlaceCompactionAsIndeterminate() {
+        BMDBMeta meta = new BMDBMeta(tempDir.resolve("test.bmdb").toFile());
+        List<Record> records = Benchmarks.generateRecords(1000);
+
+        BMDBDatabase database = new BMDBDatabase(null, null, meta);
+        try {
+            database.insertRecords(records);
+            database.removeRecords(records.subList(100, records.size()));
+
+            List<Double> progress = new ArrayList<>();
+            meta.performAction(new DatabaseMeta.Action.Compact(value -> {
+                progress.add(value);
+                return kotlin.Unit.INSTANCE;
+            }));
+
+            assertThat(progress).containsExactly(DatabaseMeta.Action.Compact.INDETERMINATE_PROGRESS, 1.0);
+            assertThat(database.hasUnsavedChanges()).isFalse();
+            assertThat(database.getTotalRecordCount()).isEqualTo(100);
+        } finally {
+            database.close();
+        }
+    }
+}
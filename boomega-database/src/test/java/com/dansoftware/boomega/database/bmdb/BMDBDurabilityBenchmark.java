@@ -0,0 +1,69 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.bmdb;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.data.Record;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the insert & update throughput of a BMDB file under the different durability modes.
+ * The records are written one by one, as the user edits them.
+ */
+@EnabledIfSystemProperty(named = Benchmarks.ENABLED_PROPERTY, matches = "true")
+public class BMDBDurabilityBenchmark {
+
+    private static final int RECORDS_COUNT = 20_000;
+
+    @TempDir Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(BMDBDurability.class)
+    void insertAndUpdate(BMDBDurability durability) {
+        BMDBMeta meta = new BMDBMeta(tempDir.resolve(durability + ".bmdb").toFile());
+        List<Record> records = Benchmarks.generateRecords(RECORDS_COUNT);
+
+        BMDBDatabase database = new BMDBDatabase(null, null, meta, true, 1024, durability);
+        try {
+            Benchmarks.measure("BMDB (" + durability + ") insert " + RECORDS_COUNT + " records one by one",
+                    () -> records.forEach(database::insertRecord));
+            Benchmarks.measure("BMDB (" + durability + ") update " + RECORDS_COUNT + " records one by one",
+                    () -> records.forEach(record -> {
+                        record.setRating(5);
+                        database.updateRecord(record);
+                    }));
+        } finally {
+            Benchmarks.measure("BMDB (" + durability + ") close", database::close);
+        }
+
+        BMDBDatabase reopened = new BMDBDatabase(null, null, meta);
+        try {
+            assertThat(reopened.getTotalRecordCount()).isEqualTo(RECORDS_COUNT);
+        } finally {
+            reopened.close();
+        }
+    }
+}
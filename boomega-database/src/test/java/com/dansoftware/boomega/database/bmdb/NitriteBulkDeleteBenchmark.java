@@ -0,0 +1,73 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.data.Record;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the per-record removal with the bulk removal of records in a BMDB file.
+ */
+@EnabledIfSystemProperty(named = Benchmarks.ENABLED_PROPERTY, matches = "true")
+public class NitriteBulkDeleteBenchmark {
+
+    private static final int RECORDS_COUNT = 100_000;
+
+    @TempDir Path tempDir;
+    private NitriteDatabase database;
+    private List<Record> records;
+
+    @BeforeEach
+    void initialize() {
+        File file = tempDir.resolve("benchmark.bmdb").toFile();
+        database = new BMDBDatabase(null, null, new BMDBMeta(file), true, 1024);
+        records = Benchmarks.generateRecords(RECORDS_COUNT);
+        database.insertRecords(records);
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    @Test
+    void removeOneByOne() {
+        Benchmarks.measure("BMDB delete " + RECORDS_COUNT + " records one by one",
+                () -> records.forEach(database::removeRecord));
+        assertThat(database.getTotalRecordCount()).isZero();
+    }
+
+    @Test
+    void removeInBulk() {
+        Benchmarks.measure("BMDB delete " + RECORDS_COUNT + " records in bulk",
+                () -> database.removeRecords(records));
+        assertThat(database.getTotalRecordCount()).isZero();
+    }
+}
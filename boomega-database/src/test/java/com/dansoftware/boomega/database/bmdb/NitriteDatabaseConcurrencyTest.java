@@ -0,0 +1,106 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.data.Record;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress test running concurrent readers and writers against the same BMDB file.
+ * Runs only with the benchmarks, see {@link Benchmarks#ENABLED_PROPERTY}.
+ */
+@EnabledIfSystemProperty(named = Benchmarks.ENABLED_PROPERTY, matches = "true")
+public class NitriteDatabaseConcurrencyTest {
+
+    private static final int READERS = 8;
+    private static final int WRITERS = 4;
+    private static final int RECORDS_PER_WRITER = 500;
+
+    @TempDir Path tempDir;
+    private NitriteDatabase database;
+
+    @BeforeEach
+    void initialize() {
+        database = new BMDBDatabase(null, null, new BMDBMeta(tempDir.resolve("stress.bmdb").toFile()), true, 1024);
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    @Test
+    void itShouldServeConcurrentReadersAndWriters() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (Record record : Benchmarks.generateRecords(RECORDS_PER_WRITER)) {
+                        database.insertRecord(record);
+                        record.setNotes("updated");
+                        database.updateRecord(record);
+                    }
+                    return null;
+                }));
+            }
+
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    while (writing.get()) {
+                        assertThat(database.getTotalRecordCount()).isBetween(0, WRITERS * RECORDS_PER_WRITER);
+                        assertThat(database.page(0, 20, null)).hasSizeLessThanOrEqualTo(20);
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> writer : writers)
+                writer.get(5, TimeUnit.MINUTES);
+            writing.set(false);
+            for (Future<?> reader : readers)
+                reader.get(1, TimeUnit.MINUTES);
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+
+        assertThat(database.getTotalRecordCount()).isEqualTo(WRITERS * RECORDS_PER_WRITER);
+        assertThat(database.getRecords()).allMatch(it -> "updated".equals(it.getNotes()));
+    }
+}
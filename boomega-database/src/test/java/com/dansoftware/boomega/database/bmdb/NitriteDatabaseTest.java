@@ -37,6 +37,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -107,19 +108,17 @@ public class NitriteDatabaseTest {
         verify(recordRepository).remove(record);
     }
 
-    @SuppressWarnings("unchecked")
     @Test
     void itShouldGetTotalCount() {
         //given
-        Cursor<Record> mockCursor = mock(Cursor.class);
-        given(recordRepository.find()).willReturn(mockCursor);
+        given(recordRepository.size()).willReturn(5L);
 
         //when
-        underTest.getTotalRecordCount();
+        int result = underTest.getTotalRecordCount();
 
         //then
-        verify(recordRepository).find();
-        verify(mockCursor).totalCount();
+        assertThat(result).isEqualTo(5);
+        verify(recordRepository, never()).find();
     }
 
     @Test
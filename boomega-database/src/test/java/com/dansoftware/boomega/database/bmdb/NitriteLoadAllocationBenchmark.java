@@ -0,0 +1,82 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.DatabaseMeta;
+import com.dansoftware.boomega.database.api.data.Record;
+import org.dizitart.no2.Nitrite;
+import org.dizitart.no2.NitriteBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the bytes allocated per record while all the records are loaded from a BMDB file.
+ *
+ * The records are materialized directly from the documents by the {@link NitriteRecordMapper}; the jackson mapper
+ * going through the {@link NitriteRecord} objects stands for the previous, copying materialization.
+ */
+@EnabledIfSystemProperty(named = Benchmarks.ENABLED_PROPERTY, matches = "true")
+public class NitriteLoadAllocationBenchmark {
+
+    private static final int RECORDS_COUNT = 50_000;
+
+    @TempDir Path tempDir;
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private long allocationPerRecord(String mapperName, NitriteBuilder builder) {
+        Nitrite nitrite = builder.filePath(tempDir.resolve(mapperName + ".bmdb").toFile()).compressed().openOrCreate();
+        NitriteDatabase database = new NitriteDatabase(nitrite, mock(DatabaseMeta.class));
+        try {
+            database.insertRecords(Benchmarks.generateRecords(RECORDS_COUNT));
+            // warming up
+            assertThat(database.getRecords()).hasSize(RECORDS_COUNT);
+
+            long before = allocatedBytes();
+            List<Record> records = database.getRecords();
+            long allocated = allocatedBytes() - before;
+            assertThat(records).hasSize(RECORDS_COUNT);
+
+            long perRecord = allocated / RECORDS_COUNT;
+            System.out.printf("[benchmark] BMDB full load with the %s mapper: %d bytes allocated per record%n",
+                    mapperName, perRecord);
+            return perRecord;
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    void itShouldAllocateAtMostHalfAsMuchPerRecord() {
+        long copying = allocationPerRecord("jackson", Nitrite.builder());
+        long direct = allocationPerRecord("record", Nitrite.builder().nitriteMapper(new NitriteRecordMapper()));
+        assertThat(direct).isLessThanOrEqualTo(copying / 2);
+    }
+}
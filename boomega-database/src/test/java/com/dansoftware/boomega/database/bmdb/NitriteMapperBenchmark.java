@@ -0,0 +1,69 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.DatabaseMeta;
+import com.dansoftware.boomega.database.api.data.Record;
+import org.dizitart.no2.Nitrite;
+import org.dizitart.no2.NitriteBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares the insert & load throughput of the default (jackson) nitrite mapper with the {@link NitriteRecordMapper}.
+ */
+@EnabledIfSystemProperty(named = Benchmarks.ENABLED_PROPERTY, matches = "true")
+public class NitriteMapperBenchmark {
+
+    private static final int RECORDS_COUNT = 100_000;
+
+    @TempDir Path tempDir;
+
+    private void run(String mapperName, NitriteBuilder builder) {
+        Nitrite nitrite = builder.filePath(tempDir.resolve(mapperName + ".bmdb").toFile()).compressed().openOrCreate();
+        NitriteDatabase database = new NitriteDatabase(nitrite, mock(DatabaseMeta.class));
+        try {
+            List<Record> records = Benchmarks.generateRecords(RECORDS_COUNT);
+            Benchmarks.measure("BMDB insert " + RECORDS_COUNT + " records with the " + mapperName + " mapper",
+                    () -> database.insertRecords(records));
+            Benchmarks.measure("BMDB load " + RECORDS_COUNT + " records with the " + mapperName + " mapper",
+                    () -> assertThat(database.getRecords()).hasSize(RECORDS_COUNT));
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    void jacksonMapper() {
+        run("jackson", Nitrite.builder());
+    }
+
+    @Test
+    void recordMapper() {
+        run("record", Nitrite.builder().nitriteMapper(new NitriteRecordMapper()));
+    }
+}
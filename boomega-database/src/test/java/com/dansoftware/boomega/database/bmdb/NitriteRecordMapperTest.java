@@ -0,0 +1,75 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.api.data.ServiceConnection;
+import org.dizitart.no2.Document;
+import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.mapper.JacksonMapper;
+import org.dizitart.no2.mapper.NitriteMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the {@link NitriteRecordMapper} is compatible with the documents mapped by jackson.
+ */
+public class NitriteRecordMapperTest {
+
+    private final NitriteMapper jacksonMapper = new JacksonMapper();
+    private final NitriteMapper underTest = new NitriteRecordMapper();
+
+    private static NitriteRecord createRecord() {
+        Record record = Benchmarks.generateRecords(1).get(0);
+        record.setId(42L);
+        record.setNotes("Some notes");
+        record.setServiceConnection(new ServiceConnection(Map.of("googleHandle", "xyz")));
+        return new NitriteRecord(record);
+    }
+
+    @Test
+    void itShouldReadTheDocumentsMappedByJackson() {
+        NitriteRecord record = createRecord();
+        Document document = jacksonMapper.asDocument(record);
+
+        NitriteRecord result = underTest.asObject(document, NitriteRecord.class);
+
+        assertThat(result.toBaseRecord()).usingRecursiveComparison().isEqualTo(record.toBaseRecord());
+    }
+
+    @Test
+    void itShouldWriteDocumentsReadableByJackson() {
+        NitriteRecord record = createRecord();
+        Document document = underTest.asDocument(record);
+
+        NitriteRecord result = jacksonMapper.asObject(document, NitriteRecord.class);
+
+        assertThat(result.toBaseRecord()).usingRecursiveComparison().isEqualTo(record.toBaseRecord());
+    }
+
+    @Test
+    void itShouldStoreTheIdTheSameWayAsJackson() {
+        NitriteId id = NitriteId.createId(42L);
+        assertThat(underTest.asValue(id)).isEqualTo(jacksonMapper.asValue(id));
+    }
+}
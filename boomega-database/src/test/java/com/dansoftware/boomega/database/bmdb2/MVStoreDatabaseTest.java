@@ -0,0 +1,184 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb2;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.api.data.ServiceConnection;
+import com.dansoftware.boomega.database.bmdb.BMDBDatabase;
+import com.dansoftware.boomega.database.bmdb.BMDBMeta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MVStoreDatabaseTest {
+
+    @TempDir Path tempDir;
+    private BMDB2Meta meta;
+    private BMDB2Database database;
+
+    @BeforeEach
+    void initialize() {
+        meta = new BMDB2Meta(tempDir.resolve("test." + BMDB2Meta.FILE_EXTENSION).toFile());
+        database = new BMDB2Database(meta, null);
+    }
+
+    @AfterEach
+    void close() {
+        if (!database.isClosed())
+            database.close();
+    }
+
+    @Test
+    void itShouldRestoreAllTheFieldsOfTheRecords() {
+        Record record = Benchmarks.generateRecords(1).get(0);
+        record.setNotes("Some notes");
+        record.setServiceConnection(new ServiceConnection(Map.of("googleHandle", "xyz", "count", 5L, "flag", true)));
+        Record empty = new Record(Record.Type.MAGAZINE);
+        database.insertRecords(List.of(record, empty));
+
+        Record loaded = database.findById(record.getId());
+        assertThat(loaded).isNotNull();
+        assertThat(loaded).usingRecursiveComparison().isEqualTo(record);
+        assertThat(database.findById(empty.getId())).usingRecursiveComparison().isEqualTo(empty);
+    }
+
+    @Test
+    void itShouldLoadTheDetailsOfTheSummariesOnDemand() {
+        Record record = Benchmarks.generateRecords(1).get(0);
+        record.setNotes("Some notes");
+        database.insertRecord(record);
+
+        Record summary = database.getRecordSummaries().get(0);
+        assertThat(summary.isDetailsLoaded()).isFalse();
+        assertThat(summary.getTitle()).isEqualTo(record.getTitle());
+        assertThat(summary.getNotes()).isEqualTo("Some notes");
+        assertThat(summary.isDetailsLoaded()).isTrue();
+    }
+
+    @Test
+    void itShouldNotLoadTheDetailsOfTheSummariesAfterClosing() {
+        Record record = Benchmarks.generateRecords(1).get(0);
+        record.setNotes("Some notes");
+        database.insertRecord(record);
+
+        Record summary = database.getRecordSummaries().get(0);
+        database.close();
+        assertThat(summary.getNotes()).isNull();
+        assertThat(summary.isDetailsLoaded()).isTrue();
+    }
+
+    @Test
+    void itShouldKeepTheRecordsAfterReopening() {
+        List<Record> inserted = Benchmarks.generateRecords(100);
+        database.insertRecords(inserted);
+        database.removeRecord(inserted.get(0));
+        database.close();
+
+        database = new BMDB2Database(meta, null);
+        assertThat(database.getTotalRecordCount()).isEqualTo(99);
+        assertThat(database.getRecords())
+                .extracting(Record::getTitle)
+                .containsExactlyElementsOf(inserted.stream().skip(1).map(Record::getTitle).toList());
+    }
+
+    @Test
+    void itShouldNotReuseTheIdsOfTheDeletedRecords() {
+        List<Record> inserted = Benchmarks.generateRecords(10);
+        database.insertRecords(inserted);
+        Record last = inserted.get(9);
+        database.removeRecord(last);
+        database.close();
+
+        database = new BMDB2Database(meta, null);
+        Record record = new Record(Record.Type.BOOK);
+        database.insertRecord(record);
+        assertThat(record.getId()).isGreaterThan(last.getId());
+    }
+
+    @Test
+    void itShouldFindTheRecordsThroughTheIndex() {
+        List<Record> inserted = Benchmarks.generateRecords(100);
+        database.insertRecords(inserted);
+
+        Record updated = inserted.get(42);
+        String oldIsbn = updated.getIsbn();
+        updated.setIsbn("1234567890");
+        database.updateRecord(updated);
+
+        assertThat(database.findByIsbn(oldIsbn)).isEmpty();
+        assertThat(database.findByIsbn("1234567890")).extracting(Record::getId).containsExactly(updated.getId());
+    }
+
+    @Test
+    void itShouldMigrateTheRecordsOfABMDBDatabase() {
+        var source = new BMDBDatabase(null, null, new BMDBMeta(tempDir.resolve("source.bmdb").toFile()), true, 1024);
+        List<Record> inserted = Benchmarks.generateRecords(2500);
+        source.insertRecords(inserted);
+        database.close();
+
+        var target = new BMDB2Meta(tempDir.resolve("migrated." + BMDB2Meta.FILE_EXTENSION).toFile());
+        assertThat(BMDBMigration.migrate(source, target)).isEqualTo(2500);
+        source.close();
+
+        database = new BMDB2Database(target, null);
+        assertThat(database.getTotalRecordCount()).isEqualTo(2500);
+        assertThat(database.findById(inserted.get(7).getId()))
+                .usingRecursiveComparison()
+                .isEqualTo(inserted.get(7));
+    }
+
+    @Test
+    void itShouldKeepTheLanguagesOfTheMigratedRecords() {
+        var source = new BMDBDatabase(null, null, new BMDBMeta(tempDir.resolve("source.bmdb").toFile()), true, 1024);
+        List<Locale> languages = List.of(Locale.UK, new Locale("hu"), new Locale("de", "AT", "1996"), Locale.ROOT);
+        List<Record> inserted = Benchmarks.generateRecords(languages.size());
+        for (int i = 0; i < languages.size(); i++)
+            inserted.get(i).setLanguage(languages.get(i));
+        source.insertRecords(inserted);
+        database.close();
+
+        var target = new BMDB2Meta(tempDir.resolve("migrated." + BMDB2Meta.FILE_EXTENSION).toFile());
+        BMDBMigration.migrate(source, target);
+        source.close();
+
+        database = new BMDB2Database(target, null);
+        assertThat(database.getRecords()).extracting(Record::getLanguage).containsExactlyElementsOf(languages);
+        database.close();
+
+        database = new BMDB2Database(target, null);
+        assertThat(database.getRecordSummaries()).extracting(Record::getLanguage).containsExactlyElementsOf(languages);
+    }
+
+    @Test
+    void itShouldNotMigrateIntoAnExistingFile() {
+        var source = new BMDBDatabase(null, null, new BMDBMeta(tempDir.resolve("source.bmdb").toFile()), true, 1024);
+        assertThatThrownBy(() -> BMDBMigration.migrate(source, meta)).isInstanceOf(IllegalArgumentException.class);
+        source.close();
+    }
+}
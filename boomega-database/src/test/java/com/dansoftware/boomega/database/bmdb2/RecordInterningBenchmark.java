@@ -0,0 +1,81 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb2;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.RecordInterner;
+import com.dansoftware.boomega.database.api.data.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the heap occupied by a realistic catalog of 200k loaded records with & without canonicalizing
+ * the repeated values, and the throughput of interning them from concurrent readers.
+ */
+@EnabledIfSystemProperty(named = Benchmarks.ENABLED_PROPERTY, matches = "true")
+public class RecordInterningBenchmark {
+
+    private static final int RECORDS_COUNT = 200_000;
+
+    /**
+     * The minimal ratio of the heap saved by interning the records
+     */
+    private static final double MIN_SAVING = 0.15;
+
+    /**
+     * Decodes the records the same way as they are loaded from a BMDB v2 file
+     */
+    private static List<Record> loadRecords() {
+        return Benchmarks.generateRecords(RECORDS_COUNT).stream()
+                .map(it -> RecordCodec.INSTANCE.decode(0L, RecordCodec.INSTANCE.encode(it), true))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void heapOfTheLoadedRecords() {
+        List<Record> records = loadRecords();
+        long plain = GraphLayout.parseInstance(records).totalSize();
+        RecordInterner interner = new RecordInterner();
+        records.forEach(interner::intern);
+        long interned = GraphLayout.parseInstance(records).totalSize();
+
+        double saving = (double) (plain - interned) / plain;
+        System.out.printf("[benchmark] heap of %d loaded records: %d KB -> %d KB with interning (%.1f%% saved)%n",
+                RECORDS_COUNT, plain / 1024, interned / 1024, 100 * saving);
+        assertThat(saving).isGreaterThanOrEqualTo(MIN_SAVING);
+    }
+
+    @Test
+    void concurrentInterning() {
+        List<Record> records = loadRecords();
+        RecordInterner interner = new RecordInterner();
+        Benchmarks.measure("interning " + RECORDS_COUNT + " records on one thread",
+                () -> records.forEach(interner::intern));
+        List<Record> others = loadRecords();
+        Benchmarks.measure("interning " + RECORDS_COUNT + " records on parallel threads",
+                () -> others.parallelStream().forEach(interner::intern));
+        assertThat(others.get(42).getPublisher()).isSameAs(records.get(42).getPublisher());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.sql;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.sql.h2.H2Meta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the per-record removal with the chunked bulk removal of records in an embedded H2 database.
+ */
+@EnabledIfSystemProperty(named = Benchmarks.ENABLED_PROPERTY, matches = "true")
+public class SQLBulkDeleteBenchmark {
+
+    private static final int RECORDS_COUNT = 100_000;
+
+    @TempDir Path tempDir;
+    private SQLDatabase database;
+    private List<Record> records;
+
+    private void initialize(int deleteChunkSize) {
+        H2Meta meta = new H2Meta(tempDir.resolve("benchmark" + H2Meta.FILE_EXTENSION).toFile());
+        database = new SQLDatabase(meta, Map.of(
+                "hibernate.connection.driver_class", "org.h2.Driver",
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.hbm2ddl.auto", "update",
+                "hibernate.connection.url", meta.getJdbcUrl(),
+                "hibernate.connection.username", "sa",
+                "hibernate.connection.password", ""
+        ), deleteChunkSize);
+        records = Benchmarks.generateRecords(RECORDS_COUNT);
+        database.insertRecords(records);
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    @Test
+    void removeOneByOne() {
+        initialize(SQLDatabase.DEFAULT_DELETE_CHUNK_SIZE);
+        Benchmarks.measure("H2 delete " + RECORDS_COUNT + " records one by one",
+                () -> records.forEach(database::removeRecord));
+        assertThat(database.refreshRecordCount()).isZero();
+    }
+
+    @Test
+    void removeInBulk() {
+        initialize(SQLDatabase.DEFAULT_DELETE_CHUNK_SIZE);
+        Benchmarks.measure("H2 delete " + RECORDS_COUNT + " records in chunks of " + SQLDatabase.DEFAULT_DELETE_CHUNK_SIZE,
+                () -> database.removeRecords(records));
+        assertThat(database.refreshRecordCount()).isZero();
+    }
+
+    @Test
+    void removeInSmallChunks() {
+        initialize(100);
+        Benchmarks.measure("H2 delete " + RECORDS_COUNT + " records in chunks of 100",
+                () -> database.removeRecords(records));
+        assertThat(database.refreshRecordCount()).isZero();
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.sql;
+
+import com.dansoftware.boomega.database.Benchmarks;
+import com.dansoftware.boomega.database.api.RecordCursor;
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.sql.h2.H2Meta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the {@link SQLDatabase} on an embedded H2 database, so no database server is needed.
+ */
+public class SQLDatabaseTest {
+
+    @TempDir Path tempDir;
+    private H2Meta meta;
+    private SQLDatabase database;
+
+    @BeforeEach
+    void initialize() {
+        meta = new H2Meta(tempDir.resolve("test" + H2Meta.FILE_EXTENSION).toFile());
+        database = open();
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    private SQLDatabase open() {
+        return open(SQLDatabase.DEFAULT_DELETE_CHUNK_SIZE);
+    }
+
+    private SQLDatabase open(int deleteChunkSize) {
+        return open(deleteChunkSize, Map.of());
+    }
+
+    private SQLDatabase open(int deleteChunkSize, Map<String, String> additionalOptions) {
+        var options = new HashMap<>(Map.of(
+                "hibernate.connection.driver_class", "org.h2.Driver",
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.hbm2ddl.auto", "update",
+                "hibernate.connection.url", meta.getJdbcUrl(),
+                "hibernate.connection.username", "sa",
+                "hibernate.connection.password", ""
+        ));
+        options.putAll(additionalOptions);
+        return new SQLDatabase(meta, options, deleteChunkSize);
+    }
+
+    @Test
+    void itShouldLoadTheInsertedRecordsWithTheirAuthors() {
+        List<Record> inserted = Benchmarks.generateRecords(100);
+        database.insertRecords(inserted);
+
+        assertThat(inserted).allMatch(it -> it.getId() != null);
+        assertThat(database.getTotalRecordCount()).isEqualTo(100);
+        assertThat(database.getRecords())
+                .extracting(Record::getAuthors)
+                .containsExactlyInAnyOrderElementsOf(inserted.stream().map(Record::getAuthors).toList());
+    }
+
+    @Test
+    void itShouldLoadAllTheFieldsOfTheRecords() {
+        List<Record> inserted = Benchmarks.generateRecords(10);
+        database.insertRecords(inserted);
+
+        assertThat(database.getRecords())
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(inserted);
+        try (RecordCursor cursor = database.cursor()) {
+            assertThat(cursor.iterator())
+                    .toIterable()
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyInAnyOrderElementsOf(inserted);
+        }
+    }
+
+    @Test
+    void itShouldLoadTheNotesOfTheSummariesOnDemand() {
+        List<Record> inserted = Benchmarks.generateRecords(10);
+        inserted.forEach(it -> it.setNotes("Notes of " + it.getTitle()));
+        database.insertRecords(inserted);
+
+        List<Record> summaries = database.getRecordSummaries();
+        assertThat(summaries).hasSize(10).noneMatch(Record::isDetailsLoaded);
+        assertThat(summaries)
+                .extracting(Record::getNotes)
+                .containsExactlyInAnyOrderElementsOf(inserted.stream().map(Record::getNotes).toList());
+    }
+
+    @Test
+    void itShouldWriteTheSummariesThroughASingleConnection() {
+        database.close();
+        // the details would be loaded lazily through a second connection, if they weren't loaded before the writes
+        database = open(SQLDatabase.DEFAULT_DELETE_CHUNK_SIZE, Map.of(
+                "hibernate.hikari.minimumIdle", "1",
+                "hibernate.hikari.maximumPoolSize", "1",
+                "hibernate.hikari.connectionTimeout", "1000"
+        ));
+        List<Record> inserted = Benchmarks.generateRecords(10);
+        inserted.forEach(it -> it.setNotes("Notes of " + it.getTitle()));
+        database.insertRecords(inserted);
+
+        List<Record> summaries = database.getRecordSummaries();
+        summaries.forEach(it -> it.setTitle(it.getTitle() + " (updated)"));
+        database.updateRecords(summaries);
+        // the copies load the details of the original records
+        List<Record> copies = database.getRecordSummaries().stream()
+                .map(Record::copy)
+                .peek(it -> it.setId(null))
+                .toList();
+        database.insertRecords(copies);
+
+        assertThat(database.getRecords())
+                .hasSize(20)
+                .allMatch(it -> it.getTitle().endsWith(" (updated)"))
+                .allMatch(it -> it.getNotes().equals("Notes of " + it.getTitle().replace(" (updated)", "")));
+    }
+
+    @Test
+    void itShouldFindTheRecordsById() {
+        List<Record> inserted = Benchmarks.generateRecords(10);
+        database.insertRecords(inserted);
+
+        Record found = database.findById(inserted.get(3).getId());
+        assertThat(found).isNotNull();
+        assertThat(found.getTitle()).isEqualTo(inserted.get(3).getTitle());
+        assertThat(found.getAuthors()).isEqualTo(inserted.get(3).getAuthors());
+
+        assertThat(database.findByIds(List.of(inserted.get(0).getId(), inserted.get(9).getId(), -1L)))
+                .extracting(Record::getTitle)
+                .containsExactlyInAnyOrder(inserted.get(0).getTitle(), inserted.get(9).getTitle());
+    }
+
+    @Test
+    void itShouldRemoveTheRecordsWithTheirAuthors() {
+        List<Record> inserted = Benchmarks.generateRecords(10);
+        database.insertRecords(inserted);
+        database.removeRecords(inserted.subList(0, 7));
+
+        assertThat(database.getTotalRecordCount()).isEqualTo(3);
+        assertThat(database.refreshRecordCount()).isEqualTo(3);
+        assertThat(database.getRecords())
+                .extracting(Record::getId)
+                .containsExactlyInAnyOrder(inserted.get(7).getId(), inserted.get(8).getId(), inserted.get(9).getId());
+    }
+
+    @Test
+    void itShouldRemoveMoreRecordsThanTheDeleteChunkSize() {
+        database.close();
+        database = open(3);
+
+        List<Record> inserted = Benchmarks.generateRecords(10);
+        database.insertRecords(inserted);
+        database.removeRecords(inserted.subList(0, 8));
+
+        assertThat(database.refreshRecordCount()).isEqualTo(2);
+        assertThat(database.getRecords())
+                .extracting(Record::getId)
+                .containsExactlyInAnyOrder(inserted.get(8).getId(), inserted.get(9).getId());
+        assertThat(database.getRecords())
+                .extracting(Record::getAuthors)
+                .containsExactlyInAnyOrder(inserted.get(8).getAuthors(), inserted.get(9).getAuthors());
+    }
+
+    @Test
+    void itShouldKeepTheRecordsAfterReopening() {
+        List<Record> inserted = Benchmarks.generateRecords(10);
+        database.insertRecords(inserted);
+        database.close();
+
+        database = open();
+        List<Record> insertedLater = Benchmarks.generateRecords(5);
+        database.insertRecords(insertedLater);
+
+        assertThat(database.getRecords()).hasSize(15);
+        assertThat(insertedLater).noneMatch(later -> inserted.stream().anyMatch(it -> it.getId().equals(later.getId())));
+    }
+}
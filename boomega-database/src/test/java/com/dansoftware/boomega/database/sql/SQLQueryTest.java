@@ -0,0 +1,41 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.database.sql;
+
+import com.dansoftware.boomega.database.api.Database;
+import com.dansoftware.boomega.database.api.DatabaseQueryTest;
+import com.dansoftware.boomega.database.sql.h2.H2Meta;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+public class SQLQueryTest extends DatabaseQueryTest {
+
+    @Override
+    protected Database openDatabase(Path directory) {
+        var meta = new H2Meta(directory.resolve("test" + H2Meta.FILE_EXTENSION).toFile());
+        return new SQLDatabase(meta, Map.of(
+                "hibernate.connection.driver_class", "org.h2.Driver",
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.hbm2ddl.auto", "update",
+                "hibernate.connection.url", meta.getJdbcUrl(),
+                "hibernate.connection.username", "sa",
+                "hibernate.connection.password", ""
+        ));
+    }
+}
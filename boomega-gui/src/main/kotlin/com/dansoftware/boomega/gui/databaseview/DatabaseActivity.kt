@@ -19,17 +19,31 @@ package com.dansoftware.boomega.gui.databaseview
 
 import com.dansoftware.boomega.database.api.Database
 import com.dansoftware.boomega.database.api.DatabaseMeta
+import com.dansoftware.boomega.database.api.WriteBehindDatabase
 import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.api.Context
+import com.dansoftware.boomega.gui.databaseview.config.WRITE_BEHIND
 import com.dansoftware.boomega.gui.dbmanager.DatabaseTracker
 import com.dansoftware.boomega.gui.menu.getPreferredApplicationMenuBar
+import com.dansoftware.boomega.gui.util.runOnUiThread
+import com.dansoftware.boomega.i18n.api.i18n
 import javafx.stage.WindowEvent
 import java.lang.ref.WeakReference
 import java.util.*
+import java.util.function.Consumer
 
-class DatabaseActivity(
-    private val database: Database
-) {
+class DatabaseActivity(database: Database) {
+
+    // the record edits are written behind in batches, if it's turned on
+    private val database: Database = when {
+        get(com.dansoftware.boomega.config.Preferences::class)[WRITE_BEHIND] ->
+            WriteBehindDatabase(database).apply {
+                onFlushFailed = Consumer { e ->
+                    runOnUiThread { context.showErrorDialog(i18n("database.write_behind.failed"), e.message, e) {} }
+                }
+            }
+        else -> database
+    }
 
     private val databaseView by lazy { buildDatabaseView() }
     val context: Context get() = databaseView
@@ -27,16 +27,22 @@ import com.dansoftware.boomega.gui.login.isAutoLoginOn
 import com.dansoftware.boomega.gui.login.removeAutoLogin
 import com.dansoftware.boomega.gui.login.updateLoginData
 import com.dansoftware.boomega.gui.util.icon
+import com.dansoftware.boomega.gui.util.onWindowPresent
 import com.dansoftware.boomega.i18n.api.I18N
 import com.dansoftware.boomega.i18n.api.i18n
 import com.dansoftware.boomega.util.byteCountToDisplaySize
+import javafx.animation.Animation
+import javafx.animation.KeyFrame
+import javafx.animation.Timeline
 import javafx.application.Platform
+import javafx.event.EventHandler
 import javafx.geometry.Insets
 import javafx.geometry.Orientation
 import javafx.scene.Group
 import javafx.scene.control.*
 import javafx.scene.layout.HBox
 import javafx.scene.layout.StackPane
+import javafx.util.Duration
 
 class DatabaseViewToolbar(
     private val view: DatabaseView,
@@ -52,6 +58,7 @@ class DatabaseViewToolbar(
         leftItems.add(buildSeparator())
         leftItems.add(buildDatabaseNameControl())
         rightItems.add(buildSizeIndicator())
+        rightItems.add(buildConnectionPoolIndicator())
         rightItems.add(buildSeparator())
         rightItems.add(buildFileOpenerButton())
         rightItems.add(buildSeparator())
@@ -124,4 +131,55 @@ class DatabaseViewToolbar(
             isVisible = false
         }
     }
-}
\ No newline at end of file
+
+    private fun buildConnectionPoolIndicator() = Label().apply {
+        if (view.databaseMeta.isActionSupported(DatabaseMeta.Action.PoolStatistics)) {
+            padding = Insets(0.0, 5.0, 0.0, 0.0)
+            tooltip = Tooltip()
+
+            val updateText = {
+                val statistics = view.databaseMeta.performAction(DatabaseMeta.Action.PoolStatistics)
+                text = "${i18n("database_view.connections")} ${
+                    i18n(
+                        "database_view.connections.state",
+                        statistics.activeConnections,
+                        statistics.idleConnections,
+                        statistics.waitingThreads
+                    )
+                }"
+                tooltip.text = i18n("database_view.connections.wait_time", statistics.averageWaitTime.toMillis())
+            }.also { it() }
+            tooltip.setOnShowing { updateText() }
+            view.databaseReadOnly.addListener {
+                Platform.runLater {
+                    if (view.databaseMeta.isActionSupported(DatabaseMeta.Action.PoolStatistics))
+                        updateText()
+                }
+            }
+
+            // the pool state changes without any notification, so it's polled while the window is showing
+            val refresher = Timeline().apply {
+                cycleCount = Animation.INDEFINITE
+                keyFrames.add(KeyFrame(POOL_REFRESH_INTERVAL, EventHandler {
+                    when {
+                        view.databaseMeta.isActionSupported(DatabaseMeta.Action.PoolStatistics) -> updateText()
+                        else -> stop()
+                    }
+                }))
+            }
+            onWindowPresent { window ->
+                if (window.isShowing) refresher.play()
+                window.showingProperty().addListener { _, _, showing ->
+                    if (showing) refresher.play() else refresher.stop()
+                }
+            }
+        } else {
+            isManaged = false
+            isVisible = false
+        }
+    }
+
+    private companion object {
+        val POOL_REFRESH_INTERVAL: Duration = Duration.seconds(2.0)
+    }
+}
@@ -19,12 +19,15 @@
 package com.dansoftware.boomega.gui.dbcreator
 
 import com.dansoftware.boomega.database.api.DatabaseConstructionException
+import com.dansoftware.boomega.config.Preferences
 import com.dansoftware.boomega.database.api.DatabaseMeta
+import com.dansoftware.boomega.database.api.DatabaseOption
 import com.dansoftware.boomega.database.api.DatabaseProvider
 import com.dansoftware.boomega.database.api.RegistrationForm
 import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.dbmanager.DatabaseTracker
+import com.dansoftware.boomega.gui.login.updateLoginData
 import com.dansoftware.boomega.gui.util.asObjectProperty
 import com.dansoftware.boomega.gui.util.not
 import com.dansoftware.boomega.gui.util.padding
@@ -38,6 +41,7 @@ import javafx.scene.control.Button
 import javafx.scene.control.ScrollPane
 import javafx.scene.layout.BorderPane
 import javafx.scene.layout.StackPane
+import javafx.scene.layout.VBox
 import java.util.concurrent.TimeUnit
 
 class DatabaseCreatorForm(
@@ -51,13 +55,17 @@ class DatabaseCreatorForm(
             .maximumSize(10)
             .build()
 
+    /**
+     * The options specified for each provider; the registration forms read them when the database is created
+     */
+    private val optionsCache: MutableMap<DatabaseProvider<*>, MutableMap<DatabaseOption<*>, Any>> = HashMap()
+
     private val registrationForm: ObjectProperty<RegistrationForm<*>?> =
         Bindings.createObjectBinding(
             {
                 databaseType.get()?.let {
-                    registrationFormCache.get(it) {
-                        // TODO: database options
-                        databaseType.get()?.buildUIRegistrationForm(context, emptyMap())
+                    registrationFormCache.get(it) { provider ->
+                        provider.buildUIRegistrationForm(context, optionsOf(provider))
                     }
                 }
             },
@@ -78,9 +86,16 @@ class DatabaseCreatorForm(
 
     private fun buildCenter() = ScrollPane().apply {
         isFitToWidth = true
-        contentProperty().bind(Bindings.createObjectBinding({ registrationForm.get()?.node }, registrationForm))
+        contentProperty().bind(Bindings.createObjectBinding({
+            registrationForm.get()?.let { form ->
+                val provider = databaseType.get()
+                VBox(form.node, DatabaseOptionsPane(provider.availableOptions, optionsOf(provider)))
+            }
+        }, registrationForm))
     }
 
+    private fun optionsOf(provider: DatabaseProvider<*>) = optionsCache.getOrPut(provider, ::HashMap)
+
     private fun buildBottom() = Button().run {
         maxWidth = Double.MAX_VALUE
         minHeight = 35.0
@@ -91,6 +106,7 @@ class DatabaseCreatorForm(
         }
         setOnAction {
             constructDatabase()?.let {
+                saveOptions(it, optionsOf(databaseType.get()))
                 get(DatabaseTracker::class).saveDatabase(it)
                 createdDatabase = it
                 context.close()
@@ -99,6 +115,13 @@ class DatabaseCreatorForm(
         StackPane(this).padding(Insets(10.0))
     }
 
+    private fun saveOptions(databaseMeta: DatabaseMeta, options: Map<DatabaseOption<*>, Any>) {
+        if (options.isNotEmpty()) {
+            val savedOptions = HashMap(options)
+            get(Preferences::class).updateLoginData { it.databaseOptions[databaseMeta] = savedOptions }
+        }
+    }
+
     private fun constructDatabase() =
         try {
             registrationForm.get()!!.registrate()
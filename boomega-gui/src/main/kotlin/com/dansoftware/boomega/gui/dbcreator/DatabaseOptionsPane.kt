@@ -0,0 +1,107 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.dansoftware.boomega.gui.dbcreator
+
+import com.dansoftware.boomega.database.api.DatabaseOption
+import com.dansoftware.boomega.gui.util.NumberTextField
+import com.dansoftware.boomega.i18n.api.i18n
+import javafx.css.PseudoClass
+import javafx.geometry.Insets
+import javafx.scene.Node
+import javafx.scene.control.CheckBox
+import javafx.scene.control.ComboBox
+import javafx.scene.control.Label
+import javafx.scene.control.TextField
+import javafx.scene.control.TitledPane
+import javafx.scene.layout.GridPane
+import javafx.scene.layout.Priority
+
+/**
+ * Lets the user specify the [DatabaseOption]s of the database being created.
+ *
+ * The specified values are written into the given [options] map; the options not specified
+ * (or specified with an invalid value) are left out of it, so their default values are used.
+ * The numeric options are expected to be positive.
+ */
+class DatabaseOptionsPane(
+    availableOptions: List<DatabaseOption<*>>,
+    private val options: MutableMap<DatabaseOption<*>, Any>
+) : TitledPane() {
+
+    init {
+        text = i18n("database.creator.options")
+        isExpanded = false
+        isVisible = availableOptions.isNotEmpty()
+        isManaged = availableOptions.isNotEmpty()
+        content = GridPane().apply {
+            padding = Insets(10.0)
+            hgap = 5.0
+            vgap = 5.0
+            availableOptions.forEachIndexed { row, option ->
+                add(Label(option.name), 0, row)
+                add(buildControl(option).also { GridPane.setHgrow(it, Priority.ALWAYS) }, 1, row)
+            }
+        }
+    }
+
+    private fun buildControl(option: DatabaseOption<*>): Node {
+        val value: Any? = options[option] ?: option.defaultValue
+        return when (option.type.kotlin.javaObjectType) {
+            Boolean::class.javaObjectType -> CheckBox().apply {
+                isSelected = value == true
+                selectedProperty().addListener { _, _, selected -> options[option] = selected }
+            }
+            Int::class.javaObjectType -> buildNumberField(option, value) { it.toIntOrNull()?.takeIf { number -> number > 0 } }
+            Long::class.javaObjectType -> buildNumberField(option, value) { it.toLongOrNull()?.takeIf { number -> number > 0 } }
+            String::class.java -> TextField(value?.toString()).apply {
+                textProperty().addListener { _, _, text -> options[option] = text }
+            }
+            else -> when {
+                option.type.isEnum -> ComboBox<Any>().apply {
+                    maxWidth = Double.MAX_VALUE
+                    items.addAll(option.type.enumConstants)
+                    selectionModel.select(value)
+                    valueProperty().addListener { _, _, selected -> selected?.let { options[option] = it } }
+                }
+                else -> Label(value?.toString())
+            }
+        }
+    }
+
+    /**
+     * An invalid (or empty) value is marked on the field and removed from the [options],
+     * so the default value is used instead.
+     */
+    private fun buildNumberField(option: DatabaseOption<*>, value: Any?, parse: (String) -> Any?) =
+        NumberTextField().apply {
+            text = value?.toString()
+            promptText = option.defaultValue?.toString()
+            textProperty().addListener { _, _, text ->
+                val parsed = text?.let(parse)
+                pseudoClassStateChanged(INVALID, parsed === null && !text.isNullOrEmpty())
+                when (parsed) {
+                    null -> options.remove(option)
+                    else -> options[option] = parsed
+                }
+            }
+        }
+
+    private companion object {
+        val INVALID: PseudoClass = PseudoClass.getPseudoClass("invalid")
+    }
+}
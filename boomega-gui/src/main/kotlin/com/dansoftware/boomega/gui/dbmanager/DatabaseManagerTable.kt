@@ -26,11 +26,13 @@ import com.dansoftware.boomega.util.byteCountToDisplaySize
 import javafx.beans.binding.Bindings
 import javafx.beans.binding.IntegerBinding
 import javafx.collections.ObservableList
+import javafx.concurrent.Task
 import javafx.scene.control.*
 import javafx.scene.layout.Priority
 import javafx.scene.layout.VBox
 import javafx.util.Callback
 import org.slf4j.LoggerFactory
+import java.util.concurrent.ExecutorService
 
 /**
  * A DBManagerTable is a [TableView] that is used for managing (monitoring, deleting) databases.
@@ -61,6 +63,8 @@ class DatabaseManagerTable(private val context: Context) : TableView<DatabaseMet
         columns.add(PathColumn())
         columns.add(SizeColumn())
         columns.add(FileOpenerColumn())
+        columns.add(CompactColumn(context))
+        columns.add(RebuildIndexesColumn(context))
         columns.add(DeleteColumn(context))
     }
 
@@ -281,6 +285,196 @@ class DatabaseManagerTable(private val context: Context) : TableView<DatabaseMet
         }
     }
 
+    /**
+     * The compact-column provides a [Button] to reclaim the unused space of the selected database(s).
+     */
+    private class CompactColumn(private val context: Context) :
+        TableColumn<DatabaseMeta, String>(i18n("database.manager.table.column.compact")),
+        Callback<TableColumn<DatabaseMeta, String>, TableCell<DatabaseMeta, String>> {
+
+        init {
+            isReorderable = false
+            isSortable = false
+            minWidth = 90.0
+            cellFactory = this
+        }
+
+        override fun call(tableColumn: TableColumn<DatabaseMeta, String>): TableCell<DatabaseMeta, String> {
+            return object : TableCell<DatabaseMeta, String>() {
+
+                private val buttonDisableProperty get() =
+                    tableRow.selectedProperty().not().or(
+                        Bindings.createBooleanBinding({
+                            !tableView.items[index].isActionSupported(DatabaseMeta.Action.Compact())
+                        }, selectedProperty())
+                    )
+
+                override fun updateItem(item: String?, empty: Boolean) {
+                    super.updateItem(item, empty)
+                    when {
+                        empty -> {
+                            text = null
+                            graphic = null
+                        }
+                        else -> {
+                            graphic = Button().apply {
+                                contentDisplay = ContentDisplay.GRAPHIC_ONLY
+                                graphic = icon("database-compact-icon")
+                                maxWidth = Double.MAX_VALUE
+                                disableProperty().bind(buttonDisableProperty)
+                                setOnAction { compactDatabases() }
+                            }
+                        }
+                    }
+                }
+
+                private fun compactDatabases() {
+                    val items = tableView.selectionModel.selectedItems
+                        .filter { it.isActionSupported(DatabaseMeta.Action.Compact()) }
+                    get(ExecutorService::class, "cachedExecutor").submit(CompactTask(context, items) { tableView.refresh() })
+                }
+            }
+        }
+    }
+
+    /**
+     * Compacts the given databases one after the other; gives the total number of bytes reclaimed.
+     * It's used by the [CompactColumn].
+     */
+    private class CompactTask(
+        private val context: Context,
+        private val items: List<DatabaseMeta>,
+        private val onFinished: () -> Unit
+    ) : Task<Long>() {
+
+        init {
+            onRunning { context.showIndeterminateProgress() }
+            progressProperty().addListener { _, _, progress ->
+                when {
+                    progress.toDouble() < 0 -> context.showIndeterminateProgress()
+                    else -> context.showProgress((progress.toDouble() * 100).toLong(), 100, Context.ProgressType.NORMAL)
+                }
+            }
+            onSucceeded { reclaimed ->
+                context.stopProgress()
+                context.showInformationNotification(
+                    i18n("database.manager.compaction.finished.title"),
+                    i18n("database.manager.compaction.finished.msg", byteCountToDisplaySize(reclaimed.coerceAtLeast(0)))
+                )
+                onFinished()
+            }
+            onFailed {
+                logger.error("Couldn't compact the database(s)", it)
+                context.stopProgress()
+                context.showErrorDialog(
+                    i18n("database.manager.compaction.failed.title"),
+                    it.localizedMessage ?: "",
+                    it as? Exception
+                )
+                onFinished()
+            }
+        }
+
+        override fun call(): Long {
+            return items.withIndex().sumOf { (i, databaseMeta) ->
+                databaseMeta[DatabaseMeta.Action.Compact {
+                    // the in-place compaction can only be displayed as a busy indicator
+                    when {
+                        it < 0 -> updateProgress(-1.0, 1.0)
+                        else -> updateProgress(i + it, items.size.toDouble())
+                    }
+                }]
+            }
+        }
+    }
+
+    /**
+     * The rebuild-indexes-column provides a [Button] to rebuild the indexes of the selected (opened) database(s).
+     */
+    private class RebuildIndexesColumn(private val context: Context) :
+        TableColumn<DatabaseMeta, String>(i18n("database.manager.table.column.rebuild_indexes")),
+        Callback<TableColumn<DatabaseMeta, String>, TableCell<DatabaseMeta, String>> {
+
+        init {
+            isReorderable = false
+            isSortable = false
+            minWidth = 90.0
+            cellFactory = this
+        }
+
+        override fun call(tableColumn: TableColumn<DatabaseMeta, String>): TableCell<DatabaseMeta, String> {
+            return object : TableCell<DatabaseMeta, String>() {
+
+                private val buttonDisableProperty get() =
+                    tableRow.selectedProperty().not().or(
+                        Bindings.createBooleanBinding({
+                            !tableView.items[index].isActionSupported(DatabaseMeta.Action.RebuildIndexes)
+                        }, selectedProperty())
+                    )
+
+                override fun updateItem(item: String?, empty: Boolean) {
+                    super.updateItem(item, empty)
+                    when {
+                        empty -> {
+                            text = null
+                            graphic = null
+                        }
+                        else -> {
+                            graphic = Button().apply {
+                                contentDisplay = ContentDisplay.GRAPHIC_ONLY
+                                graphic = icon("reload-icon")
+                                maxWidth = Double.MAX_VALUE
+                                disableProperty().bind(buttonDisableProperty)
+                                setOnAction { rebuildIndexes() }
+                            }
+                        }
+                    }
+                }
+
+                private fun rebuildIndexes() {
+                    val items = tableView.selectionModel.selectedItems
+                        .filter { it.isActionSupported(DatabaseMeta.Action.RebuildIndexes) }
+                    get(ExecutorService::class, "cachedExecutor").submit(RebuildIndexesTask(context, items))
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts rebuilding the indexes of the given databases; the indexes are rebuilt by the databases
+     * in the background, so the task only waits until the rebuilds are started.
+     * It's used by the [RebuildIndexesColumn].
+     */
+    private class RebuildIndexesTask(
+        private val context: Context,
+        private val items: List<DatabaseMeta>
+    ) : Task<Unit>() {
+
+        init {
+            onRunning { context.showIndeterminateProgress() }
+            onSucceeded {
+                context.stopProgress()
+                context.showInformationNotification(
+                    i18n("database.manager.rebuild_indexes.started.title"),
+                    i18n("database.manager.rebuild_indexes.started.msg")
+                )
+            }
+            onFailed {
+                logger.error("Couldn't rebuild the indexes of the database(s)", it)
+                context.stopProgress()
+                context.showErrorDialog(
+                    i18n("database.manager.rebuild_indexes.failed.title"),
+                    it.localizedMessage ?: "",
+                    it as? Exception
+                )
+            }
+        }
+
+        override fun call() {
+            items.forEach { it[DatabaseMeta.Action.RebuildIndexes] }
+        }
+    }
+
     /**
      * The delete-column provides a [Button] to delete the selected database(s).
      */
@@ -66,7 +66,10 @@ class DatabaseTracker @Inject constructor(preferences: Preferences) {
             }
 
             override fun onDatabaseRemoved(databaseMeta: DatabaseMeta) {
-                preferences.updateLoginData { it.savedDatabases.remove(databaseMeta) }
+                preferences.updateLoginData {
+                    it.savedDatabases.remove(databaseMeta)
+                    it.databaseOptions.remove(databaseMeta)
+                }
             }
         })
     }
@@ -21,25 +21,11 @@
 package com.dansoftware.boomega.gui.google
 
 import com.dansoftware.boomega.database.api.data.Record
-import com.dansoftware.boomega.database.api.data.ServiceConnection
 import com.dansoftware.boomega.rest.google.books.Volume
 import com.dansoftware.boomega.rest.google.books.getPublishedDateObject
 import com.dansoftware.boomega.rest.google.books.isMagazine
 import java.util.*
 
-/**
- * Retrieves and allows access for the `google.book.handle` entry.
- *
- * It's intended to hold a [Volume]'s id.
- *
- * @see Volume.id
- */
-var ServiceConnection.googleBookHandle: String?
-    get() = this["google.book.handle"]?.toString()
-    set(value) {
-        this["google.book.handle"] = value
-    }
-
 /**
  * Converts a [Volume] to a Boomega-record.
  */
@@ -56,6 +42,6 @@ fun Volume.asRecord(): Record {
         title = volumeInfo?.title
         subtitle = volumeInfo?.subtitle
         publisher = volumeInfo?.publisher
-        serviceConnection = ServiceConnection().apply { googleBookHandle = this@asRecord.id }
+        googleBookHandle = this@asRecord.id
     }
 }
\ No newline at end of file
@@ -270,7 +270,7 @@ open class ActivityLauncher(
         onFailed: (DatabaseConstructionException) -> Unit
     ): Database? {
         return try {
-            meta.provider.getDatabase(meta, credentials, options = emptyMap()) // TODO: database options!
+            meta.provider.getDatabase(meta, credentials, options = loginData.optionsOf(meta))
         } catch (e: DatabaseConstructionException) {
             onFailed(e)
             null
@@ -69,6 +69,15 @@ class LoginBox(
     private val loginForm: ObjectProperty<LoginForm<*>?> = SimpleObjectProperty()
     private val databaseChooser: DatabaseCombo = buildDatabaseChooser()
 
+    /**
+     * The options of the selected database; a live view, since a login form is shared by the databases of a provider
+     */
+    private val selectedDatabaseOptions: Map<DatabaseOption<*>, Any>
+        get() = object : AbstractMap<DatabaseOption<*>, Any>() {
+            override val entries: Set<Map.Entry<DatabaseOption<*>, Any>>
+                get() = selectedDatabase?.let { preferences[LOGIN_DATA].optionsOf(it).entries } ?: emptySet()
+        }
+
     var selectedDatabase: DatabaseMeta?
         get() = databaseChooser.selectedItem
         set(value) {
@@ -132,7 +141,7 @@ class LoginBox(
                         selectedItem?.provider?.buildUILoginForm(
                             context,
                             selectedItemProperty() as ReadOnlyObjectProperty<DatabaseMeta>,
-                            emptyMap() // TODO: database options
+                            selectedDatabaseOptions
                         )
                     }
                 }
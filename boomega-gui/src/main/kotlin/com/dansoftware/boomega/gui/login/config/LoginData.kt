@@ -20,6 +20,7 @@ package com.dansoftware.boomega.gui.login.config
 
 import com.dansoftware.boomega.database.api.DatabaseField
 import com.dansoftware.boomega.database.api.DatabaseMeta
+import com.dansoftware.boomega.database.api.DatabaseOption
 import javafx.collections.FXCollections
 import javafx.collections.ObservableList
 
@@ -46,6 +47,11 @@ class LoginData(
     var autoLoginCredentials: Map<DatabaseField<*>, Any>? = autoLoginCredentials
         get() = field ?: emptyMap()
 
+    /**
+     * The options the saved databases are opened with (specified when they were created)
+     */
+    val databaseOptions: MutableMap<DatabaseMeta, Map<DatabaseOption<*>, Any>> = HashMap()
+
     var selectedDatabaseIndex: Int
         get() = savedDatabases.indexOf(selectedDatabase)
         set(value) {
@@ -55,6 +61,13 @@ class LoginData(
 
     constructor() : this(emptyList(), null, emptyMap())
 
+    /**
+     * Gives the options the given database should be opened with
+     */
+    fun optionsOf(databaseMeta: DatabaseMeta): Map<DatabaseOption<*>, Any> {
+        return databaseOptions[databaseMeta] ?: emptyMap()
+    }
+
     override fun toString(): String {
         return "LoginData(savedDatabases=$savedDatabases, selectedDatabase=$selectedDatabase, isAutoLogin=$isAutoLogin)"
     }
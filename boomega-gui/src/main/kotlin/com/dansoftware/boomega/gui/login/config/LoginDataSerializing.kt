@@ -21,6 +21,7 @@ package com.dansoftware.boomega.gui.login.config
 import com.dansoftware.boomega.database.SupportedDatabases
 import com.dansoftware.boomega.database.api.DatabaseField
 import com.dansoftware.boomega.database.api.DatabaseMeta
+import com.dansoftware.boomega.database.api.DatabaseOption
 import com.dansoftware.boomega.database.api.DatabaseProvider
 import com.google.gson.*
 import org.slf4j.Logger
@@ -33,6 +34,7 @@ private const val AUTO_LOGIN = "autolgn"
 private const val AUTO_LOGIN_CREDENTIALS = "crdntls_2_0"
 private const val DATABASE_PROVIDER = "provider"
 private const val DATABASE_URL = "dburl"
+private const val DATABASE_OPTIONS = "optns"
 
 class LoginDataAdapter : com.dansoftware.boomega.config.ConfigAdapter<LoginData>,
     JsonSerializer<LoginData> by LoginDataSerializer(),
@@ -49,12 +51,15 @@ class LoginDataDeserializer : JsonDeserializer<LoginData> {
         val selectedDatabaseIndex = getSelectedDatabaseIndex(json)
         val selectedDatabase = selectedDatabaseIndex?.let { databases[it] }
         val autoLoginCredentials = getAutoLoginCredentials(context, json, selectedDatabase, isAutoLogin)
+        val databaseOptions = getDatabaseOptions(context, json, databases)
 
         logger.debug("Found {} saved database(s)", databases.size)
         logger.debug("Auto login: {}", isAutoLogin)
         logger.debug("Selected database index: {}", selectedDatabaseIndex)
 
-        return LoginData(databases, selectedDatabase, autoLoginCredentials, isAutoLogin)
+        return LoginData(databases, selectedDatabase, autoLoginCredentials, isAutoLogin).apply {
+            this.databaseOptions.putAll(databaseOptions)
+        }
     }
 
     private fun deserializeDatabases(jsonArray: JsonArray?): List<DatabaseMeta> {
@@ -82,6 +87,19 @@ class LoginDataDeserializer : JsonDeserializer<LoginData> {
         }
     }
 
+    private fun deserializeOptions(
+        context: JsonDeserializationContext,
+        provider: DatabaseProvider<*>,
+        jsonObject: JsonObject
+    ): Map<DatabaseOption<*>, Any> {
+        return jsonObject.entrySet().mapNotNull { (key, value) ->
+            // the options no longer available are skipped
+            provider.availableOptions.find { it.id == key }?.let { option ->
+                context.deserialize<Any>(value, option.type)?.let { option to it }
+            }
+        }.toMap()
+    }
+
     private fun getDatabaseProvider(className: String) =
         SupportedDatabases.find { it.javaClass.name == className }
 
@@ -92,6 +110,35 @@ class LoginDataDeserializer : JsonDeserializer<LoginData> {
                 ?.asJsonArray
         )
 
+    /**
+     * The options are stored in the entries of the saved databases
+     */
+    private fun getDatabaseOptions(
+        context: JsonDeserializationContext,
+        json: JsonObject,
+        databases: List<DatabaseMeta>
+    ): Map<DatabaseMeta, Map<DatabaseOption<*>, Any>> {
+        val entries = json[SAVED_DATABASES]
+            ?.takeUnless { it.isJsonNull }
+            ?.asJsonArray
+            ?.map(JsonElement::getAsJsonObject)
+            ?: return emptyMap()
+        return databases.associateWith { meta ->
+            entries.find { it[DATABASE_URL]?.asString == meta.identifier && it[DATABASE_PROVIDER]?.asString == meta.provider.javaClass.name }
+                ?.get(DATABASE_OPTIONS)
+                ?.takeUnless { it.isJsonNull }
+                ?.let {
+                    try {
+                        deserializeOptions(context, meta.provider, it.asJsonObject)
+                    } catch (e: RuntimeException) {
+                        logger.error("Couldn't read the options of the database", e)
+                        null
+                    }
+                }
+                ?: emptyMap()
+        }.filterValues { it.isNotEmpty() }
+    }
+
     private fun getAutoLogin(json: JsonObject) =
         json[AUTO_LOGIN]
             ?.takeUnless { it.isJsonNull }
@@ -139,7 +186,7 @@ class LoginDataSerializer : JsonSerializer<LoginData> {
 
         // { "svdbs" : [ ... ], "autolgn": true,  "scltdb": 2, "crdntls": { ... } }
         val json = JsonObject()
-        json.add(SAVED_DATABASES, serializeDatabases(src.savedDatabases.toList()))
+        json.add(SAVED_DATABASES, serializeDatabases(context, src.savedDatabases.toList(), src.databaseOptions))
         json.addProperty(AUTO_LOGIN, src.isAutoLogin)
         json.addProperty(SELECTED_DATABASE_INDEX, src.selectedDatabaseIndex)
         json.add(
@@ -151,19 +198,37 @@ class LoginDataSerializer : JsonSerializer<LoginData> {
         return json
     }
 
-    private fun serializeDatabases(savedDatabases: List<DatabaseMeta>): JsonArray {
-        // [ { "provider" : "<CLASS>", "dburl" : "<FILE PATH>" }, ... ]
+    private fun serializeDatabases(
+        context: JsonSerializationContext,
+        savedDatabases: List<DatabaseMeta>,
+        databaseOptions: Map<DatabaseMeta, Map<DatabaseOption<*>, Any>>
+    ): JsonArray {
+        // [ { "provider" : "<CLASS>", "dburl" : "<FILE PATH>", "optns" : { "option" : <VALUE>, ... } }, ... ]
         val array = JsonArray()
         val serializedEntries = savedDatabases.map {
             JsonObject().apply {
                 addProperty(DATABASE_PROVIDER, it.provider.javaClass.name)
                 addProperty(DATABASE_URL, it.identifier)
+                databaseOptions[it]?.takeIf(Map<*, *>::isNotEmpty)?.let { options ->
+                    add(DATABASE_OPTIONS, serializeOptions(context, options))
+                }
             }
         }
         serializedEntries.forEach(array::add)
         return array
     }
 
+    private fun serializeOptions(
+        context: JsonSerializationContext,
+        options: Map<DatabaseOption<*>, Any>
+    ): JsonObject {
+        val jsonObject = JsonObject()
+        options.forEach { (key, value) ->
+            jsonObject.add(key.id, context.serialize(value))
+        }
+        return jsonObject
+    }
+
     private fun serializeCredentials(
         context: JsonSerializationContext,
         autoLoginCredentials: Map<DatabaseField<*>, Any>
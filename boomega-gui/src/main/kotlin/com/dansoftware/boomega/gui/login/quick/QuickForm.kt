@@ -18,10 +18,13 @@
 
 package com.dansoftware.boomega.gui.login.quick
 
+import com.dansoftware.boomega.config.Preferences
 import com.dansoftware.boomega.database.api.DatabaseConstructionException
 import com.dansoftware.boomega.database.api.DatabaseMeta
+import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.login.DatabaseLoginListener
+import com.dansoftware.boomega.gui.login.config.LOGIN_DATA
 import com.dansoftware.boomega.i18n.api.i18n
 import javafx.beans.property.SimpleObjectProperty
 import javafx.geometry.Insets
@@ -40,7 +43,7 @@ class QuickForm(
     private val loginForm = databaseMeta.provider.buildUILoginForm(
         context,
         SimpleObjectProperty(databaseMeta),
-        emptyMap() // TODO: database options
+        get(Preferences::class)[LOGIN_DATA].optionsOf(databaseMeta)
     )
 
     init {
@@ -21,6 +21,7 @@ package com.dansoftware.boomega.gui.preferences.pane
 import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.app.ApplicationRestart
+import com.dansoftware.boomega.gui.databaseview.config.WRITE_BEHIND
 import com.dansoftware.boomega.gui.util.icon
 import com.dansoftware.boomega.gui.util.typeEquals
 import com.dansoftware.boomega.i18n.api.I18N
@@ -46,10 +47,22 @@ class AdvancedPane(private val context: Context, preferences: com.dansoftware.bo
             }
 
             private fun buildItems() {
+                items.add(buildWriteBehindToggle())
                 items.add(buildGCControl())
                 items.add(buildResetControl())
             }
 
+            private fun buildWriteBehindToggle(): PreferencesControl =
+                ToggleControl(
+                    I18N.getValue("preferences.advanced.write_behind"),
+                    I18N.getValue("preferences.advanced.write_behind.desc")
+                ).apply {
+                    isSelected = preferences.get(WRITE_BEHIND)
+                    selectedProperty().addListener { _, _, selected ->
+                        preferences.editor().put(WRITE_BEHIND, selected)
+                    }
+                }
+
             private fun buildResetControl(): PreferencesControl =
                 PairControl(
                     I18N.getValue("preferences.advanced.reset"),
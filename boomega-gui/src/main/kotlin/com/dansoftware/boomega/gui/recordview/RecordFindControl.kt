@@ -19,6 +19,7 @@
 package com.dansoftware.boomega.gui.recordview
 
 import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.loadDetails
 import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.control.SearchTextField
 import com.dansoftware.boomega.gui.util.icon
@@ -239,6 +240,8 @@ class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.
             }
 
             override fun call(): List<Record> {
+                // the notes are searched as well, so they are loaded at once instead of one-by-one
+                baseItems.toList().loadDetails()
                 return baseItems.stream()
                     .filter { filter.get().filter(it) }
                     .collect(Collectors.toList())
@@ -35,7 +35,7 @@ open class RecordsGetTask(private val database: Database) :
     Task<List<Record>>() {
 
     override fun call(): List<Record> {
-        return database.records
+        return database.recordSummaries
     }
 }
 
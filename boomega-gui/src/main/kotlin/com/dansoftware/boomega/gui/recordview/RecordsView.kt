@@ -19,6 +19,7 @@
 package com.dansoftware.boomega.gui.recordview
 
 import com.dansoftware.boomega.database.api.Database
+import com.dansoftware.boomega.database.api.loadDetails
 import com.dansoftware.boomega.database.api.data.Record
 import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.export.api.RecordExportAPI
@@ -205,23 +206,24 @@ class RecordsView(
                 setOnRunning { context.showIndeterminateProgress() }
                 setOnSucceeded {
                     context.stopProgress()
-                    refresh {
-                        value.takeIf { it.isNotEmpty() }
-                            ?.also { table.selectionModel.clearSelection() } // clearing previous selections
-                            ?.onEach { Platform.runLater { table.selectionModel.select(it) } }
-                            ?.let { table.scrollTo(it[0]) }
-                    }
+                    // the inserted records already hold their ids, so there is no need to reload the whole table
+                    value.takeIf { it.isNotEmpty() }
+                        ?.also { baseItems.addAll(it) }
+                        ?.also { table.selectionModel.clearSelection() } // clearing previous selections
+                        ?.onEach { Platform.runLater { table.selectionModel.select(it) } }
+                        ?.let { table.scrollTo(it[0]) }
                 }
             }
 
             override fun call(): List<Record> {
                 synchronized(RecordClipboard) {
                     logger.debug("Performing paste action....")
+                    items.loadDetails()
                     return items.stream()
                         .map(Record::copy)
                         .peek { it.id = null }
                         .collect(Collectors.toList())
-                        .onEach(database::insertRecord)
+                        .also(database::insertRecords)
                 }
             }
         }
@@ -298,7 +300,7 @@ class RecordsView(
      */
     @OptIn(RecordExportAPI::class)
     fun <C : RecordExportConfiguration> exportSelected(exporter: RecordExporter<C>) {
-        export(exporter, table.selectedItems.map(Record::copy))
+        export(exporter, table.selectedItems.toList().also { it.loadDetails() }.map(Record::copy))
     }
 
     @OptIn(RecordExportAPI::class)
@@ -24,7 +24,6 @@ import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.databaseview.DatabaseView
 import com.dansoftware.boomega.gui.google.details.GoogleBookDetailsView
-import com.dansoftware.boomega.gui.google.googleBookHandle
 import com.dansoftware.boomega.gui.recordview.RecordTable
 import com.dansoftware.boomega.gui.recordview.util.MultipleSelectionPlaceHolder
 import com.dansoftware.boomega.gui.util.I18NButtonTypes
@@ -174,8 +173,7 @@ class GoogleBookConnectionView(
         }
 
     private fun retrieveGoogleBookHandle(items: List<Record>?): String? {
-        return items?.map(Record::serviceConnection)
-            ?.map { it?.googleBookHandle }
+        return items?.map(Record::googleBookHandle)
             ?.distinct()
             ?.singleOrNull()
     }
@@ -256,9 +254,8 @@ class GoogleBookConnectionView(
         }
 
         override fun call() {
-            items.stream()
-                .peek { it.serviceConnection?.googleBookHandle = null }
-                .forEach(database::updateRecord)
+            items.onEach { it.googleBookHandle = null }
+                .let(database::updateRecords)
         }
     }
 
@@ -373,7 +370,7 @@ class GoogleBookConnectionView(
                 }
 
                 override fun call() {
-                    items[0].serviceConnection?.googleBookHandle = volume.id
+                    items[0].googleBookHandle = volume.id
                     database.updateRecord(items[0])
                 }
             }
@@ -142,7 +142,6 @@ class FieldsEditorForm(
                     language(items.map { it.language?.language }.distinct().singleOrNull())
                     isbn(items.map(Record::isbn).distinct().singleOrNull())
                     subject(items.map(Record::subject).distinct().singleOrNull())
-                    notes(items.map(Record::notes).distinct().singleOrNull())
                     numberOfCopies(items.map(Record::numberOfCopies).distinct().singleOrNull())
                     rating(items.map(Record::rating).distinct().singleOrNull())
                 }
@@ -280,7 +279,7 @@ class FieldsEditorForm(
             record.publishedDate = publishedDate.get()
         }
         logger.debug("Updating ({}) records in database...", items.size)
-        items.forEach(database::updateRecord)
+        database.updateRecords(items)
     }
 
     /**
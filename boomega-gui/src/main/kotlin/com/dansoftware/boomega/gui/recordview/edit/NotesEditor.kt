@@ -20,12 +20,16 @@ package com.dansoftware.boomega.gui.recordview.edit
 
 import com.dansoftware.boomega.database.api.Database
 import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.recordview.util.MultipleSelectionPlaceHolder
 import com.dansoftware.boomega.gui.util.SystemBrowser
+import com.dansoftware.boomega.gui.util.onFailed
+import com.dansoftware.boomega.gui.util.onSucceeded
 import com.dansoftware.mdeditor.MarkdownEditorControl
 import javafx.beans.property.BooleanProperty
 import javafx.beans.property.SimpleBooleanProperty
+import javafx.concurrent.Task
 import javafx.geometry.Pos
 import javafx.scene.Node
 import javafx.scene.control.ProgressBar
@@ -34,6 +38,7 @@ import javafx.scene.effect.BoxBlur
 import javafx.scene.layout.StackPane
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
+import java.util.concurrent.ExecutorService
 
 class NotesEditor(
     private val context: Context,
@@ -78,11 +83,30 @@ class NotesEditor(
         when {
             items.isEmpty() -> children.clear()
             items.size > 1 -> content = MultipleSelectionPlaceHolder()
-            else -> {
-                content = markdownEditor.also { markdownEditor.markdown = items[0].notes ?: "" }
-                updateChangedProperty()
-            }
+            items[0].isDetailsLoaded -> showNotes(items[0].notes)
+            else -> loadNotes(items[0])
+        }
+    }
+
+    private fun showNotes(notes: String?) {
+        content = markdownEditor.also { markdownEditor.markdown = notes ?: "" }
+        updateChangedProperty()
+    }
+
+    /**
+     * Loads the notes of the record on a background thread, so the UI is not blocked by the database.
+     */
+    private fun loadNotes(record: Record) {
+        children.clear()
+        val task = object : Task<String?>() {
+            override fun call(): String? = record.notes
+        }
+        task.onSucceeded { notes ->
+            if (items.singleOrNull() === record)
+                showNotes(notes)
         }
+        task.onFailed { logger.error("Couldn't load the notes of the record", it) }
+        get(ExecutorService::class, "cachedExecutor").submit(task)
     }
 
     fun updateChangedProperty() {
@@ -100,6 +124,8 @@ class NotesEditor(
     }
 
     fun saveChanges() {
+        // the notes might not be loaded (and shown) yet
+        if (content !== markdownEditor || !changed.get()) return
         items.takeIf { it.isNotEmpty() }?.get(0)?.also {
             it.notes = markdownEditor.markdown
             database.updateRecord(it)
@@ -117,7 +117,17 @@ class RecordEditor(
     fun changedProperty(): BooleanBinding =
         fieldsEditor.changedProperty().or(notesEditor.changedProperty()).and(Bindings.isNotEmpty(selectedItems))
 
-    private inner class SaveTask : Task<Unit>() {
+    /**
+     * Saves the changes; gives the saved records.
+     *
+     * The edited records are the instances shown by the table (modified in place by the editors),
+     * so they don't have to be read back from the database: the table only has to redraw them,
+     * keeping its items (& the ones behind its filter) and its selection.
+     */
+    private inner class SaveTask : Task<List<Record>>() {
+
+        private val savedItems = items
+
         init {
             setOnRunning {
                 fieldsEditor.showProgress()
@@ -135,13 +145,14 @@ class RecordEditor(
                 notesEditor.updateChangedProperty()
                 fieldsEditor.stopProgress()
                 notesEditor.stopProgress()
-                onItemsModified?.accept(items)
+                onItemsModified?.accept(value)
             }
         }
 
-        override fun call() {
+        override fun call(): List<Record> {
             fieldsEditor.saveChanges()
             notesEditor.saveChanges()
+            return savedItems
         }
     }
 
@@ -49,6 +49,7 @@ private val iconPack = mapOf<String, () -> Node>(
     "database-icon" to fun() = MaterialDesignIconView(MaterialDesignIcon.DATABASE),
     "database-plus-icon" to fun() = MaterialDesignIconView(MaterialDesignIcon.DATABASE_PLUS),
     "database-minus-icon" to fun() = MaterialDesignIconView(MaterialDesignIcon.DATABASE_MINUS),
+    "database-compact-icon" to fun() = MaterialDesignIconView(MaterialDesignIcon.ARROW_COMPRESS),
     "play-icon" to fun() = MaterialDesignIconView(MaterialDesignIcon.PLAY),
     "login-icon" to fun() = MaterialDesignIconView(MaterialDesignIcon.LOGIN),
     "logout-icon" to fun() = MaterialDesignIconView(MaterialDesignIcon.LOGOUT),
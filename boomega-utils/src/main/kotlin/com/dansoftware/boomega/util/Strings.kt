@@ -30,4 +30,12 @@ inline fun String.surrounding(prefix: String, suffix: String) = "$prefix$this$su
  * Gives _null_ value if the string is blank
  */
 @Suppress("NOTHING_TO_INLINE")
-inline fun String?.nullIfBlank() = this?.takeIf { it.isNotBlank() }
\ No newline at end of file
+inline fun String?.nullIfBlank() = this?.takeIf { it.isNotBlank() }
+
+/**
+ * Parses the locale in the format of [java.util.Locale.toString] (as jackson and hibernate do)
+ */
+fun String.toLocale(): java.util.Locale {
+    val parts = split('_', limit = 3)
+    return java.util.Locale(parts[0], parts.getOrElse(1) { "" }, parts.getOrElse(2) { "" })
+}